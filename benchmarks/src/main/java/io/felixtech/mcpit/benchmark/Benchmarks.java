@@ -0,0 +1,26 @@
+package io.felixtech.mcpit.benchmark;
+
+import io.felixtech.mcpit.EndpointTransport;
+import io.felixtech.mcpit.util.ThrottledTransport;
+import io.felixtech.mcpit.util.URLConnectionTransport;
+import io.felixtech.mcpit.util.URLReader;
+
+/**
+ * Shared setup of the benchmarks.
+ */
+final class Benchmarks {
+    private Benchmarks() {}
+
+    /**
+     * Installs the default transport stack with a rate limit which never kicks in, so only the retries on injected 429
+     * responses are measured, not the waiting for permits. Retries back off for at most 10 milliseconds.
+     */
+    static ThrottledTransport installTransport() {
+        EndpointTransport transport = new EndpointTransport(new URLConnectionTransport());
+        ThrottledTransport throttle = transport.getThrottle();
+        throttle.setDefaultRate(1e6, 1_000_000);
+        throttle.setRetries(5, 1, 10);
+        URLReader.setTransport(transport);
+        return throttle;
+    }
+}
@@ -0,0 +1,89 @@
+package io.felixtech.mcpit.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.felixtech.mcpit.MinecraftPlayerInfo;
+import io.felixtech.mcpit.NameResolution;
+import io.felixtech.mcpit.PlayerProfile;
+import io.felixtech.mcpit.SessionProfile;
+import io.felixtech.mcpit.util.NameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures complete lookups against the local stub with the response cache disabled.
+ * <br>{@code latency} delays every response, {@code throttleEvery} answers every n-th request with 429.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    @Param({"0", "20"})
+    public long latency;
+
+    @Param({"0", "10"})
+    public int throttleEvery;
+
+    @Param({"100"})
+    public int bulkSize;
+
+    private MojangStub stub;
+    private List<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stub = new MojangStub();
+        stub.setLatency(latency);
+        stub.setThrottleEvery(throttleEvery);
+        stub.install();
+        Benchmarks.installTransport();
+        MinecraftPlayerInfo.setCache(null);
+        // a memory-only name index, so runs neither read nor grow the index of the user
+        MinecraftPlayerInfo.setNameIndex(new NameIndex(null));
+
+        names = new ArrayList<>(bulkSize);
+
+        for (int i = 0; i < bulkSize; i++)
+            names.add((i % 10 == 9 ? "missing" : "player") + i);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Benchmark
+    public PlayerProfile profile() throws IOException {
+        return MinecraftPlayerInfo.getProfile("Notch");
+    }
+
+    @Benchmark
+    public Object[] singleLookup() throws IOException {
+        PlayerProfile profile = MinecraftPlayerInfo.getProfile("Notch");
+        SessionProfile session = MinecraftPlayerInfo.getSessionProfile(profile.getId());
+
+        return new Object[] {profile, MinecraftPlayerInfo.getNameHistory(profile.getId()), session.getSkinUrl()};
+    }
+
+    @Benchmark
+    public NameResolution bulkLookup() throws IOException {
+        return MinecraftPlayerInfo.resolveUUIDs(names);
+    }
+}
@@ -0,0 +1,197 @@
+package io.felixtech.mcpit.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.felixtech.mcpit.Endpoint;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * An embedded stub of the Mojang API serving recorded responses, so benchmarks run fully offline.
+ * <br>Every name resolves to the recorded profile (with the requested name); names starting with {@code missing}
+ * don't exist. Responses can be delayed and every n-th request can be answered with 429 (Too Many Requests).
+ */
+public final class MojangStub implements AutoCloseable {
+    static {
+        // headers and body are written separately, without TCP_NODELAY small responses wait for the delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(32);
+    private final byte[] profile = recorded("profile.json");
+    private final byte[] names = recorded("names.json");
+    private final byte[] session = recorded("session.json");
+    private final AtomicLong requests = new AtomicLong();
+
+    private volatile long latency = 0;
+    private volatile int throttleEvery = 0;
+
+    /**
+     * Starts the stub on a free port of the loopback interface.
+     * @throws IOException if the server can't be started
+     */
+    public MojangStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/users/profiles/minecraft/", exchange -> handle(exchange, this::profile));
+        server.createContext("/profiles/minecraft", exchange -> handle(exchange, this::bulk));
+        server.createContext("/user/profiles/", exchange -> handle(exchange, (ex, request) -> names));
+        server.createContext("/session/minecraft/profile/", exchange -> handle(exchange, (ex, request) -> session));
+        server.createContext("/large/", exchange -> handle(exchange, this::large));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Points all Mojang endpoints at this stub.
+     */
+    public void install() {
+        for (Endpoint endpoint : new Endpoint[] {Endpoint.PROFILE, Endpoint.BULK_PROFILES, Endpoint.NAMES, Endpoint.SESSION})
+            endpoint.setBaseURL(getBaseURL());
+    }
+
+    /**
+     * Returns the base URL of the stub.
+     * @return the base URL, e.g. {@code http://127.0.0.1:34567}
+     */
+    public String getBaseURL() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Delays every response.
+     * @param millis the delay in milliseconds
+     */
+    public void setLatency(long millis) {
+        this.latency = millis;
+    }
+
+    /**
+     * Answers every n-th request with 429 (Too Many Requests) and {@code Retry-After: 0}.
+     * @param every the interval or 0 to never throttle
+     */
+    public void setThrottleEvery(int every) {
+        this.throttleEvery = every;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private byte[] profile(HttpExchange exchange, byte[] request) {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+
+        if (name.startsWith("missing"))
+            return null;
+
+        return new JSONObject(new String(profile, StandardCharsets.UTF_8)).put("name", name).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] bulk(HttpExchange exchange, byte[] request) {
+        JSONArray requested = new JSONArray(new String(request, StandardCharsets.UTF_8));
+        JSONArray found = new JSONArray();
+        JSONObject template = new JSONObject(new String(profile, StandardCharsets.UTF_8));
+
+        for (int i = 0; i < requested.length(); i++)
+            if (!requested.getString(i).startsWith("missing"))
+                found.put(new JSONObject(template.toMap()).put("name", requested.getString(i)));
+
+        return found.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] large(HttpExchange exchange, byte[] request) {
+        String path = exchange.getRequestURI().getPath();
+        int size = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+        StringBuilder builder = new StringBuilder(size + names.length).append('[');
+
+        while (builder.length() < size) {
+            if (builder.length() > 1) builder.append(",\n");
+            builder.append(new String(names, 1, names.length - 2, StandardCharsets.UTF_8));
+        }
+
+        return builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            // the request body is always consumed, otherwise the connection can't be reused after a 429
+            byte[] request = readAll(exchange.getRequestBody());
+
+            if (latency > 0)
+                TimeUnit.MILLISECONDS.sleep(latency);
+
+            int every = throttleEvery;
+
+            if (every > 0 && requests.incrementAndGet() % every == 0) {
+                exchange.getResponseHeaders().set("Retry-After", "0");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+
+            byte[] body = handler.handle(exchange, request);
+
+            if (body == null) {
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns a recorded response.
+     * @param name the file name of the response, e.g. {@code session.json}
+     * @return the UTF-8 encoded response
+     * @throws IllegalStateException thrown if the response doesn't exist
+     */
+    public static byte[] recorded(String name) {
+        try (InputStream in = MojangStub.class.getResourceAsStream("/recorded/" + name)) {
+            if (in == null) throw new IllegalStateException("Missing recorded response: " + name);
+            return readAll(in);
+        } catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        byte[] handle(HttpExchange exchange, byte[] request);
+    }
+}
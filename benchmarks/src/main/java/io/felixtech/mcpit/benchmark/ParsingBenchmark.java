@@ -0,0 +1,100 @@
+package io.felixtech.mcpit.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.felixtech.mcpit.Endpoint;
+import io.felixtech.mcpit.MinecraftPlayerInfo;
+import io.felixtech.mcpit.NameHistory;
+import io.felixtech.mcpit.SessionProfile;
+import io.felixtech.mcpit.util.NameIndex;
+import io.felixtech.mcpit.util.ResponseCache;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of the recorded responses without any network access.
+ * <br>The {@code json*} benchmarks are the baseline of parsing the complete response into a tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+    private static final String UUID = "069a79f444e94726a5befca90e38aaf5";
+
+    private byte[] session;
+    private byte[] names;
+    private String textures;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        session = MojangStub.recorded("session.json");
+        names = MojangStub.recorded("names.json");
+        textures = SessionProfile.parse(session).getProperty("textures").getValue();
+
+        // the name history is answered from a warm memory-only cache, so only the conversion is measured
+        ResponseCache cache = new ResponseCache(16, null);
+        cache.put(Endpoint.NAMES.key(UUID), names, TimeUnit.DAYS.toMillis(1));
+        MinecraftPlayerInfo.setCache(cache);
+        // a memory-only name index, so runs neither read nor grow the index of the user
+        MinecraftPlayerInfo.setNameIndex(new NameIndex(null));
+    }
+
+    @Benchmark
+    public JSONObject jsonSession() {
+        return new JSONObject(new String(session, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public SessionProfile parseSession() {
+        return SessionProfile.parse(session);
+    }
+
+    @Benchmark
+    public String parseSessionSkinUrl() {
+        return SessionProfile.parse(session).getSkinUrl();
+    }
+
+    @Benchmark
+    public JSONObject infoJSON() {
+        return SessionProfile.parse(session).toJSON();
+    }
+
+    @Benchmark
+    public byte[] decodeProperty() {
+        return Base64.getDecoder().decode(textures);
+    }
+
+    @Benchmark
+    public JSONArray jsonNames() {
+        return new JSONArray(new String(names, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Map<String, Long> getAllNames() throws IOException {
+        return MinecraftPlayerInfo.getAllNames(UUID);
+    }
+
+    @Benchmark
+    public NameHistory getNameHistory() throws IOException {
+        return MinecraftPlayerInfo.getNameHistory(UUID);
+    }
+}
@@ -0,0 +1,61 @@
+package io.felixtech.mcpit.benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import io.felixtech.mcpit.util.URLReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading large responses through {@link URLReader} from the local stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class URLReaderBenchmark {
+    @Param({"16384", "1048576"})
+    public int size;
+
+    private MojangStub stub;
+    private URL url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stub = new MojangStub();
+        Benchmarks.installTransport();
+        url = new URL(stub.getBaseURL() + "/large/" + size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Benchmark
+    public String readAll() throws IOException {
+        try (URLReader reader = new URLReader(url)) {
+            return reader.readAll();
+        }
+    }
+
+    @Benchmark
+    public byte[] readBytes() throws IOException {
+        return URLReader.readBytes(url);
+    }
+}
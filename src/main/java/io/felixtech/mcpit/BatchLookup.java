@@ -0,0 +1,326 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.Deadline;
+import io.felixtech.mcpit.util.NoSuchPlayerException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Headless batch mode: looks up a list of players with a {@link BulkLookup} and streams one JSON line per player in
+ * completion order.
+ * <br>Never touches AWT, so it can run on servers without a display.
+ */
+final class BatchLookup {
+    private File input = null;
+    private File output = null;
+    private File checkpoint = null;
+    private File records = null;
+    private String metrics = null;
+    private int threads = 4;
+    private long timeout = MinecraftPlayerInfo.getLookupTimeout();
+
+    private Writer out;
+    private Writer checkpointOut;
+    private PlayerRecordWriter recordsOut;
+    private int failed = 0;
+
+    private BatchLookup() {}
+
+    /**
+     * Runs the batch mode.
+     * <br>A run stops at the first output error, e.g. a full disk or a closed pipe.
+     * @param args the command line arguments following {@code --batch}
+     * @return the exit code: 0 if every player was looked up or doesn't exist, 1 if the run failed, 2 for invalid
+     *         arguments and 3 if the run completed but at least one lookup failed and is left for a resumed run to retry
+     */
+    static int run(String[] args) {
+        BatchLookup batch = new BatchLookup();
+
+        try {
+            batch.parse(args);
+        } catch(IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: --batch [--input <file>] [--output <file>] [--checkpoint <file>] [--records <file>] [--metrics <file>|-] [--threads <n>] [--timeout <ms>]");
+            return 2;
+        }
+
+        try {
+            int exitCode = batch.execute();
+            batch.dumpMetrics();
+            return exitCode;
+        } catch(IOException e) {
+            System.err.println("Batch lookup failed: " + e);
+            return 1;
+        }
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+
+            String value = args[++i];
+
+            switch (option) {
+                case "--input":
+                    input = "-".equals(value) ? null : new File(value);
+                    break;
+                case "--output":
+                    output = "-".equals(value) ? null : new File(value);
+                    break;
+                case "--checkpoint":
+                    checkpoint = new File(value);
+                    break;
+                case "--records":
+                    records = new File(value);
+                    break;
+                case "--metrics":
+                    metrics = value;
+                    break;
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(value);
+                    } catch(NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid number of threads: " + value);
+                    }
+
+                    if (threads <= 0) throw new IllegalArgumentException("Number of threads must be greater than zero!");
+                    break;
+                case "--timeout":
+                    try {
+                        timeout = Long.parseLong(value);
+                    } catch(NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid timeout: " + value);
+                    }
+
+                    if (timeout <= 0) throw new IllegalArgumentException("Timeout must be greater than zero!");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+    }
+
+    private int execute() throws IOException {
+        Set<String> done = readCheckpoint();
+        boolean resume = !done.isEmpty();
+
+        try (BulkLookup engine = new BulkLookup(threads);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     input == null ? System.in : new FileInputStream(input), StandardCharsets.UTF_8))) {
+            out = new BufferedWriter(new OutputStreamWriter(
+                    output == null ? System.out : new FileOutputStream(output, resume), StandardCharsets.UTF_8));
+            checkpointOut = checkpoint == null ? null : new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(checkpoint, true), StandardCharsets.UTF_8));
+            recordsOut = records == null ? null : new PlayerRecordWriter(records, resume);
+
+            engine.setTimeout(timeout);
+
+            // the engine reads the input only as fast as the results are written, so it can be of any size
+            engine.lookup(in.lines().map(String::trim).filter(player -> !player.isEmpty() && !done.contains(player)))
+                    .forEach(result -> {
+                        try {
+                            complete(result.getInput(), of(result, recordsOut != null));
+                        } catch(IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (out != null)
+                out.flush();
+
+            if (output != null && out != null)
+                out.close();
+
+            if (checkpointOut != null)
+                checkpointOut.close();
+
+            if (recordsOut != null)
+                recordsOut.close();
+        }
+
+        if (failed > 0) {
+            System.err.println("Failed lookups: " + failed);
+            return 3;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Writes a snapshot of the metrics to the file given by {@code --metrics} or, for {@code -}, to stderr.
+     */
+    private void dumpMetrics() throws IOException {
+        if (metrics == null)
+            return;
+
+        String snapshot = Metrics.snapshot().toString(2);
+
+        if ("-".equals(metrics)) {
+            System.err.println(snapshot);
+        } else {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(metrics), StandardCharsets.UTF_8)) {
+                writer.write(snapshot);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private Set<String> readCheckpoint() throws IOException {
+        Set<String> done = new HashSet<>();
+
+        if (checkpoint == null || !checkpoint.isFile())
+            return done;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(checkpoint), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = in.readLine()) != null)
+                done.add(line);
+        }
+
+        return done;
+    }
+
+    /**
+     * Looks up a player, see {@link BulkLookup}.
+     * <br>Parts served from expired cache entries because their endpoint is unavailable are listed in {@code stale}.
+     * @param player the name or UUID of the player
+     * @param deadline the deadline of the lookup
+     * @param fetches the executor querying the name history
+     * @param withRecord true to create a binary record as well
+     * @return the result, which reports failures in its JSON line
+     */
+    static Result lookup(String player, Deadline deadline, ExecutorService fetches, boolean withRecord) {
+        return of(BulkLookup.lookup(player, deadline, fetches), withRecord);
+    }
+
+    /**
+     * Converts the result of a lookup into its JSON line.
+     */
+    private static Result of(BulkLookup.Result lookup, boolean withRecord) {
+        JSONObject result = new JSONObject();
+        PlayerRecord record = null;
+        Exception failure = lookup.getFailure();
+        PlayerProfile profile = lookup.getProfile();
+        result.put("input", lookup.getInput());
+
+        if (profile != null) {
+            result.put("name", profile.getName());
+            result.put("legacy", profile.isLegacy());
+            result.put("demo", profile.isDemo());
+        }
+
+        if (lookup.getId() != null)
+            result.put("id", lookup.getId());
+
+        if (failure instanceof NoSuchPlayerException) {
+            result.put("error", "not_found");
+        } else if (failure != null) {
+            result.put("error", String.valueOf(failure));
+            result.put("retry", true);
+        } else {
+            SessionProfile info = lookup.getSessionProfile();
+            NameHistory history = lookup.getNameHistory();
+
+            result.put("name", info.getName());
+            result.put("names", history.toJSON());
+            JSONArray properties = new JSONArray();
+
+            for (SessionProfile.Property property : info.getProperties())
+                properties.put(new JSONObject().put("name", property.getName()).put("value", property.getValue())
+                        .putOpt("signature", property.getSignature()));
+
+            result.put("properties", properties);
+
+            JSONArray stale = new JSONArray();
+            if (profile != null && profile.isStale()) stale.put("profile");
+            if (history.isStale()) stale.put("names");
+            if (info.isStale()) stale.put("session");
+            if (stale.length() > 0) result.put("stale", stale);
+
+            if (withRecord)
+                record = PlayerRecord.of(profile, history, info);
+        }
+
+        return new Result(result, record, failure);
+    }
+
+    /**
+     * Writes the result of a lookup and records it in the checkpoint.
+     * <br>Failed lookups which may succeed on retry are not checkpointed, so a resumed run tries them again.
+     * @throws IOException thrown if the output, the records or the checkpoint can't be written
+     */
+    private void complete(String player, Result result) throws IOException {
+        boolean retry = result.json.optBoolean("retry");
+
+        if (retry)
+            failed++;
+
+        out.write(result.json.toString());
+        out.write('\n');
+        out.flush();
+
+        // System.out swallows its errors
+        if (output == null && System.out.checkError())
+            throw new IOException("Failed to write to standard output");
+
+        if (result.record != null) {
+            recordsOut.write(result.record);
+            recordsOut.flush();
+        }
+
+        if (checkpointOut != null && !retry) {
+            checkpointOut.write(player);
+            checkpointOut.write('\n');
+            checkpointOut.flush();
+        }
+    }
+
+    /**
+     * The result of a lookup: the JSON line, if requested the binary record and the cause of a failed lookup.
+     */
+    static final class Result {
+        private final JSONObject json;
+        private final PlayerRecord record;
+        private final Exception failure;
+
+        private Result(JSONObject json, PlayerRecord record, Exception failure) {
+            this.json = json;
+            this.record = record;
+            this.failure = failure;
+        }
+
+        JSONObject getJSON() {
+            return json;
+        }
+
+        /**
+         * Returns why the lookup failed.
+         * @return an {@link IOException} or a {@link RuntimeException}, or {@code null} if the lookup succeeded
+         */
+        Exception getFailure() {
+            return failure;
+        }
+    }
+}
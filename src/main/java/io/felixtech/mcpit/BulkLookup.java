@@ -0,0 +1,269 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.Deadline;
+import io.felixtech.mcpit.util.TaskExecutors;
+import io.felixtech.mcpit.util.UUIDs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Looks up many players concurrently, e.g. to audit large lists of players.
+ * <br>Players are read lazily from an iterator or a stream and the results are returned as a stream in completion
+ * order. A run never has more than {@code maxInFlight} lookups which were started but not consumed yet, so the input is
+ * only read as fast as the results are consumed and is never held in memory as a whole. All runs of an engine share a
+ * cap of {@code maxInFlight} lookups running at once.
+ * <br>Every lookup runs on its own virtual thread on Java 21 and newer and on a platform thread on older runtimes, see
+ * {@link TaskExecutors}. The requests still pass the caches, the rate limiter and the circuit breakers, so the
+ * throughput is bounded by the rate of the Mojang API rather than by the number of threads.
+ */
+public final class BulkLookup implements AutoCloseable {
+    private final int maxInFlight;
+    private final Semaphore running;
+    private final ExecutorService executor = TaskExecutors.newTaskExecutor("bulk");
+    private volatile long timeout = MinecraftPlayerInfo.getLookupTimeout();
+
+    /**
+     * Creates a new {@code BulkLookup}.
+     * @param maxInFlight the maximum number of lookups running at once
+     * @throws IllegalArgumentException thrown if the maximum is not greater than zero
+     */
+    public BulkLookup(int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("Maximum number of lookups in flight must be greater than zero!");
+
+        this.maxInFlight = maxInFlight;
+        this.running = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Configures the time a single lookup may take, starting when it starts running.
+     * @param timeout the timeout in milliseconds
+     * @throws IllegalArgumentException thrown if the timeout is not greater than zero
+     */
+    public void setTimeout(long timeout) {
+        if (timeout <= 0) throw new IllegalArgumentException("Timeout must be greater than zero!");
+        this.timeout = timeout;
+    }
+
+    /**
+     * Looks up players.
+     * <br>Closing the returned stream closes the input stream and stops starting further lookups.
+     * @param players the names or UUIDs (with or without dashes) of the players
+     * @return the results in completion order
+     */
+    public Stream<Result> lookup(Stream<String> players) {
+        return lookup(players.iterator()).onClose(players::close);
+    }
+
+    /**
+     * Looks up players.
+     * <br>The input is only read by the thread consuming the returned stream.
+     * @param players the names or UUIDs (with or without dashes) of the players
+     * @return the results in completion order; closing the stream stops starting further lookups
+     */
+    public Stream<Result> lookup(Iterator<String> players) {
+        Run run = new Run(players);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(run, Spliterator.NONNULL), false).onClose(run::cancel);
+    }
+
+    /**
+     * Stops all running lookups.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a lookup once one of the shared permits is free.
+     */
+    private Result run(String player) {
+        try {
+            running.acquire();
+        } catch(InterruptedException e) {
+            return new Result(player, null, null, null, null, new InterruptedIOException("Interrupted before the lookup started"));
+        }
+
+        try {
+            return lookup(player, Deadline.after(timeout), executor);
+        } finally {
+            running.release();
+        }
+    }
+
+    /**
+     * Looks up a player. The deadline is split across the sequential queries of the lookup.
+     * <br>A UUID skips the name resolution; the session profile and the name history are queried at the same time.
+     * @param player the name or UUID of the player
+     * @param deadline the deadline of the lookup
+     * @param fetches the executor querying the name history
+     * @return the result, which holds the failure if the lookup failed
+     */
+    static Result lookup(String player, Deadline deadline, ExecutorService fetches) {
+        String uuid = null;
+        PlayerProfile profile = null;
+
+        try {
+            UUID parsed = UUIDs.parse(player);
+
+            if (parsed != null) {
+                uuid = UUIDs.format(parsed);
+            } else {
+                profile = deadline.share(2).call(() -> MinecraftPlayerInfo.getProfile(player));
+
+                uuid = profile.getId();
+            }
+
+            String id = uuid;
+            Future<NameHistory> pendingHistory = fetches.submit(() -> deadline.call(() -> MinecraftPlayerInfo.getNameHistory(id)));
+
+            try {
+                SessionProfile info = deadline.call(() -> MinecraftPlayerInfo.getSessionProfile(id));
+                return new Result(player, uuid, profile, await(pendingHistory), info, null);
+            } finally {
+                pendingHistory.cancel(false);
+            }
+        } catch(IOException | RuntimeException e) {
+            return new Result(player, uuid, profile, null, null, e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch(ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * A single run, reading its input on the consuming thread whenever a result is requested.
+     */
+    private final class Run implements Iterator<Result> {
+        private final Iterator<String> players;
+        private final BlockingQueue<Result> done = new LinkedBlockingQueue<>();
+        private int pending = 0;
+        private volatile boolean cancelled = false;
+
+        private Run(Iterator<String> players) {
+            this.players = players;
+        }
+
+        @Override public boolean hasNext() {
+            while (!cancelled && pending < maxInFlight && players.hasNext()) {
+                String player = players.next();
+                pending++;
+                executor.execute(() -> done.add(run(player)));
+            }
+
+            return pending > 0;
+        }
+
+        @Override public Result next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            try {
+                Result result = done.take();
+                pending--;
+                return result;
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for a lookup");
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * The result of the lookup of a single player.
+     */
+    public static final class Result {
+        private final String input;
+        private final String id;
+        private final PlayerProfile profile;
+        private final NameHistory nameHistory;
+        private final SessionProfile sessionProfile;
+        private final Exception failure;
+
+        private Result(String input, String id, PlayerProfile profile, NameHistory nameHistory, SessionProfile sessionProfile, Exception failure) {
+            this.input = input;
+            this.id = id;
+            this.profile = profile;
+            this.nameHistory = nameHistory;
+            this.sessionProfile = sessionProfile;
+            this.failure = failure;
+        }
+
+        /**
+         * Returns the name or UUID the player was looked up by.
+         * @return the input
+         */
+        public String getInput() {
+            return input;
+        }
+
+        /**
+         * Returns the UUID of the player.
+         * @return the UUID (without dashes) or {@code null} if the name couldn't be resolved
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the profile of the player.
+         * @return the profile or {@code null} if the player was looked up by UUID or the name couldn't be resolved
+         */
+        public PlayerProfile getProfile() {
+            return profile;
+        }
+
+        /**
+         * Returns the name history of the player.
+         * @return the name history or {@code null} if the lookup failed
+         */
+        public NameHistory getNameHistory() {
+            return nameHistory;
+        }
+
+        /**
+         * Returns the session profile of the player.
+         * @return the session profile or {@code null} if the lookup failed
+         */
+        public SessionProfile getSessionProfile() {
+            return sessionProfile;
+        }
+
+        /**
+         * Returns why the lookup failed.
+         * @return an {@link IOException} or a {@link RuntimeException}, e.g. a
+         *         {@link io.felixtech.mcpit.util.NoSuchPlayerException} if the player doesn't exist, or {@code null} if
+         *         the lookup succeeded
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package io.felixtech.mcpit;
+
+/**
+ * JMX view of the caches used by {@link MinecraftPlayerInfo}.
+ */
+public interface CacheMetricsMXBean {
+    long getResponseCacheHits();
+    long getResponseCacheMisses();
+    double getResponseCacheHitRatio();
+    long getResponseCacheStaleHits();
+    long getResponseCacheWriteFailures();
+    long getSkinCacheHits();
+    long getSkinCacheMisses();
+    double getSkinCacheHitRatio();
+    long getSkinCacheMemorySize();
+    long getCoalescedQueries();
+}
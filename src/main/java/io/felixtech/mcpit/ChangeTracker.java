@@ -0,0 +1,405 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.NoSuchPlayerException;
+import io.felixtech.mcpit.util.TokenBucket;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+
+/**
+ * Watches users for name, skin and cape changes.
+ * <br>Every poll costs a single session profile request, which also carries the current name; the name history is
+ * only requested when the name has changed. Polls are paced evenly at a fixed rate instead of in bursts. The interval
+ * of every user adapts: it grows while nothing changes and drops back to the minimum after a change, so the request
+ * budget goes to the active users.
+ * <br>The last known state of every user is appended to a {@link PlayerRecordWriter record file}, so a restarted
+ * tracker only reports changes which happened since.
+ */
+public final class ChangeTracker implements Closeable {
+    private static final double BACKOFF = 1.5;
+    private static final double JITTER = 0.1;
+
+    private final Map<String, Watched> watched = new HashMap<>();
+    private final PriorityQueue<Watched> queue = new PriorityQueue<>(Comparator.comparingLong(w -> w.due));
+    private final Map<String, PlayerRecord> stored = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final TokenBucket pace;
+    private final Semaphore slots;
+    private final ExecutorService workers;
+    private final PlayerRecordWriter stateOut;
+    private final Thread scheduler;
+
+    private volatile long minInterval = Endpoint.SESSION.getTtl();
+    private volatile long maxInterval = TimeUnit.HOURS.toMillis(24);
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new {@code ChangeTracker}. Polling starts immediately.
+     * @param state the file keeping the last known state of every user or {@code null} to start from scratch
+     * @param pollsPerSecond the rate at which users are polled
+     * @param threads the maximum number of polls running at the same time
+     * @throws IOException thrown if the state file can't be read or written
+     * @throws IllegalArgumentException thrown if the rate or the number of threads is not greater than zero
+     */
+    public ChangeTracker(File state, double pollsPerSecond, int threads) throws IOException {
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be greater than zero!");
+
+        this.pace = new TokenBucket(pollsPerSecond, 1);
+        this.slots = new Semaphore(threads);
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "watch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (state != null && state.isFile() && state.length() > 0) {
+            try (PlayerRecordReader in = new PlayerRecordReader(state)) {
+                for (PlayerRecord record; (record = in.read()) != null; )
+                    stored.put(record.getId(), record);
+            }
+        }
+
+        this.stateOut = state == null ? null : new PlayerRecordWriter(state, true);
+
+        this.scheduler = new Thread(this::schedule, "watch-scheduler");
+        this.scheduler.setDaemon(true);
+        this.scheduler.start();
+    }
+
+    /**
+     * Configures the bounds of the adaptive poll interval.
+     * <br>The minimum should not be shorter than the time the session server caches its responses.
+     * @param min the interval after a change in milliseconds
+     * @param max the maximum interval in milliseconds
+     * @throws IllegalArgumentException thrown if the minimum is not greater than zero or greater than the maximum
+     */
+    public void setIntervals(long min, long max) {
+        if (min <= 0) throw new IllegalArgumentException("Minimum interval must be greater than zero!");
+        if (min > max) throw new IllegalArgumentException("Minimum interval must not be greater than the maximum!");
+
+        this.minInterval = min;
+        this.maxInterval = max;
+    }
+
+    /**
+     * Registers a listener which is called for every change.
+     * <br>Listeners are called on the polling threads and must not block.
+     * @param listener the listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener the listener
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts watching a user. The first poll of a user without stored state only records the current state.
+     * @param uuid the UUID of the user (with or without dashes)
+     */
+    public void watch(String uuid) {
+        String id = uuid.replace("-", "").toLowerCase(Locale.ROOT);
+
+        synchronized (queue) {
+            if (watched.containsKey(id))
+                return;
+
+            Watched w = new Watched(id, stored.get(id), minInterval);
+            watched.put(id, w);
+            queue.add(w);
+            queue.notifyAll();
+        }
+    }
+
+    /**
+     * Stops watching a user.
+     * @param uuid the UUID of the user (with or without dashes)
+     */
+    public void unwatch(String uuid) {
+        String id = uuid.replace("-", "").toLowerCase(Locale.ROOT);
+
+        synchronized (queue) {
+            Watched w = watched.remove(id);
+
+            if (w != null)
+                queue.remove(w);
+        }
+    }
+
+    /**
+     * Returns the number of watched users.
+     * @return the number of users
+     */
+    public int size() {
+        synchronized (queue) {
+            return watched.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        scheduler.interrupt();
+        workers.shutdownNow();
+
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (stateOut != null) {
+            synchronized (stateOut) {
+                stateOut.close();
+            }
+        }
+    }
+
+    /**
+     * Hands due users to the workers, one at a time at the configured rate.
+     */
+    private void schedule() {
+        try {
+            while (!closed) {
+                Watched next;
+
+                synchronized (queue) {
+                    long wait;
+
+                    while ((wait = queue.isEmpty() ? 0 : queue.peek().due - System.currentTimeMillis()) > 0 || queue.isEmpty())
+                        queue.wait(queue.isEmpty() ? 0 : wait);
+
+                    next = queue.poll();
+                }
+
+                pace.acquire();
+                slots.acquire();
+                workers.execute(() -> {
+                    try {
+                        poll(next);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch(InterruptedException | InterruptedIOException e) {
+            // closed
+        }
+    }
+
+    private void poll(Watched w) {
+        long interval = w.interval;
+
+        try {
+            SessionProfile session = MinecraftPlayerInfo.getSessionProfile(w.id, true);
+
+            if (w.state != null && session.getTimestamp() != 0 && session.getTimestamp() <= w.state.getTimestamp())
+                return; // not newer than the known state (e.g. served by a cache)
+
+            List<Change> changes = new ArrayList<>();
+            PlayerRecord previous = w.state;
+            NameHistory history = previous == null ? NameHistory.empty() : previous.getHistory();
+
+            if (previous != null && !previous.getName().equals(session.getName())) {
+                history = MinecraftPlayerInfo.getNameHistory(w.id, true);
+                changes.add(new Change(w.id, Change.Type.NAME, previous.getName(), session.getName()));
+            }
+
+            PlayerRecord current = PlayerRecord.of(null, history, session);
+
+            if (previous != null) {
+                if (!equal(previous.getSkinHash(), current.getSkinHash()))
+                    changes.add(new Change(w.id, Change.Type.SKIN, previous.getSkinHash(), current.getSkinHash()));
+                else if (current.getSkinHash() != null && previous.isSlim() != current.isSlim())
+                    changes.add(new Change(w.id, Change.Type.MODEL, model(previous), model(current)));
+
+                if (!equal(previous.getCapeHash(), current.getCapeHash()))
+                    changes.add(new Change(w.id, Change.Type.CAPE, previous.getCapeHash(), current.getCapeHash()));
+            }
+
+            w.state = current;
+            interval = changes.isEmpty() ? Math.min(maxInterval, (long) (interval * BACKOFF)) : minInterval;
+
+            if (previous == null || !changes.isEmpty())
+                store(current);
+
+            for (Change change : changes)
+                for (Listener listener : listeners)
+                    listener.changed(change);
+        } catch(NoSuchPlayerException e) {
+            interval = maxInterval;
+        } catch(IOException | RuntimeException e) {
+            System.err.println(e);
+        } finally {
+            reschedule(w, interval);
+        }
+    }
+
+    private void reschedule(Watched w, long interval) {
+        long jitter = (long) (interval * JITTER * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+
+        w.interval = interval;
+        w.due = System.currentTimeMillis() + interval + jitter;
+
+        synchronized (queue) {
+            if (!closed && watched.get(w.id) == w) {
+                queue.add(w);
+                queue.notifyAll();
+            }
+        }
+    }
+
+    private void store(PlayerRecord record) {
+        if (stateOut == null)
+            return;
+
+        try {
+            synchronized (stateOut) {
+                stateOut.write(record);
+                stateOut.flush();
+            }
+        } catch(IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    private static String model(PlayerRecord record) {
+        return record.isSlim() ? "slim" : "classic";
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * A watched user. Only the scheduler and the worker polling the user access it, never at the same time.
+     */
+    private static final class Watched {
+        private final String id;
+        private PlayerRecord state;
+        private long interval;
+        private long due = 0;
+
+        private Watched(String id, PlayerRecord state, long interval) {
+            this.id = id;
+            this.state = state;
+            this.interval = interval;
+        }
+    }
+
+    /**
+     * A detected change of a user.
+     */
+    public static final class Change {
+        /**
+         * The kind of a change.
+         */
+        public enum Type {
+            /** The player name changed. */
+            NAME,
+            /** The skin texture changed; the values are texture hashes or {@code null} for a default skin. */
+            SKIN,
+            /** The skin model changed; the values are {@code slim} or {@code classic}. */
+            MODEL,
+            /** The cape changed; the values are texture hashes or {@code null} for no cape. */
+            CAPE
+        }
+
+        private final String id;
+        private final Type type;
+        private final String oldValue;
+        private final String newValue;
+        private final long detectedAt = System.currentTimeMillis();
+
+        private Change(String id, Type type, String oldValue, String newValue) {
+            this.id = id;
+            this.type = type;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * Returns the UUID of the user.
+         * @return the UUID of the user (without dashes)
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the kind of the change.
+         * @return the type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the value before the change.
+         * @return the old value
+         */
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        /**
+         * Returns the value after the change.
+         * @return the new value
+         */
+        public String getNewValue() {
+            return newValue;
+        }
+
+        /**
+         * Returns the time at which the change was detected.
+         * @return the time in milliseconds since the epoch
+         */
+        public long getDetectedAt() {
+            return detectedAt;
+        }
+
+        /**
+         * Converts the change into the JSON format.
+         * @return the change in the JSON format
+         */
+        public JSONObject toJSON() {
+            return new JSONObject().put("time", detectedAt).put("id", id).put("type", type.name().toLowerCase(Locale.ROOT))
+                    .put("old", oldValue == null ? JSONObject.NULL : oldValue).put("new", newValue == null ? JSONObject.NULL : newValue);
+        }
+
+        @Override public String toString() {
+            return toJSON().toString();
+        }
+    }
+
+    /**
+     * Receives the changes detected by a {@link ChangeTracker}.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void changed(Change change);
+    }
+}
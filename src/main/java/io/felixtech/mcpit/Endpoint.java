@@ -0,0 +1,128 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.CircuitBreaker;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The remote endpoints queried by {@link MinecraftPlayerInfo} and the GUI.
+ * <br>The base URL of every endpoint can be replaced, e.g. to point at a local mirror or a stub, either with
+ * {@link #setBaseURL(String)} or with the system property {@code mcpit.endpoint.<name>}
+ * (e.g. {@code -Dmcpit.endpoint.session=http://localhost:8080}).
+ * <br>Every endpoint has its own {@link CircuitBreaker}, so a degraded host only fails the lookups of its own data.
+ */
+public enum Endpoint {
+    /** Resolves a player name to the profile of the user. */
+    PROFILE("https://api.mojang.com", "/users/profiles/minecraft/", "", TimeUnit.MINUTES.toMillis(15), TimeUnit.MINUTES.toMillis(5)),
+    /** Resolves up to ten player names to their profiles with a single request. */
+    BULK_PROFILES("https://api.mojang.com", "/profiles/minecraft", "", TimeUnit.MINUTES.toMillis(15), TimeUnit.MINUTES.toMillis(5)),
+    /** Lists all names a user ever had. */
+    NAMES("https://api.mojang.com", "/user/profiles/", "/names", TimeUnit.MINUTES.toMillis(15), TimeUnit.MINUTES.toMillis(5)),
+    /** Returns the session profile (skin, cape) of a user. */
+    SESSION("https://sessionserver.mojang.com", "/session/minecraft/profile/", "", TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(1)),
+    /** Serves skin and cape textures by their hash. */
+    TEXTURES("http://textures.minecraft.net", "/texture/", "", TimeUnit.DAYS.toMillis(30), TimeUnit.MINUTES.toMillis(1)),
+    /** Renders the body of a users skin. */
+    RENDER("https://crafatar.com", "/renders/body/", "", TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(1));
+
+    private final String path;
+    private final String suffix;
+    private final long ttl;
+    private final long missingTtl;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private volatile String baseURL;
+
+    Endpoint(String defaultBaseURL, String path, String suffix, long ttl, long missingTtl) {
+        this.baseURL = System.getProperty("mcpit.endpoint." + name().toLowerCase(Locale.ROOT), defaultBaseURL);
+        this.path = path;
+        this.suffix = suffix;
+        this.ttl = ttl;
+        this.missingTtl = missingTtl;
+    }
+
+    /**
+     * Builds the URL of a query.
+     * @param argument the player name or UUID to query
+     * @return the URL of the query
+     * @throws MalformedURLException thrown if the argument results in an invalid URL
+     */
+    public URL url(String argument) throws MalformedURLException {
+        return new URL(baseURL + path + argument + suffix);
+    }
+
+    /**
+     * Finds the endpoint a URL belongs to.
+     * @param url the URL of a query
+     * @return the endpoint or {@code null} if the URL doesn't belong to any endpoint
+     */
+    public static Endpoint of(URL url) {
+        String value = url.toString();
+
+        for (Endpoint endpoint : values())
+            if (value.startsWith(endpoint.baseURL + endpoint.path))
+                return endpoint;
+
+        return null;
+    }
+
+    /**
+     * Returns the base URL (scheme, host and port) of this endpoint.
+     * @return the base URL, e.g. {@code https://api.mojang.com}
+     */
+    public String getBaseURL() {
+        return baseURL;
+    }
+
+    /**
+     * Replaces the base URL of this endpoint.
+     * @param baseURL the new base URL without trailing slash, e.g. {@code http://localhost:8080}
+     * @throws IllegalArgumentException thrown if the base URL is not a valid URL
+     */
+    public void setBaseURL(String baseURL) {
+        try {
+            new URL(baseURL);
+        } catch(MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid base URL: " + baseURL, e);
+        }
+
+        this.baseURL = baseURL.endsWith("/") ? baseURL.substring(0, baseURL.length() - 1) : baseURL;
+    }
+
+    /**
+     * Builds the cache key of a query. Player names are case-insensitive, so the key is lowercased.
+     * @param argument the player name or UUID to query
+     * @return the cache key of the query
+     */
+    public String key(String argument) {
+        return name().toLowerCase(Locale.ROOT) + "/" + argument.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns how long a response of this endpoint may be cached.
+     * @return the time-to-live in milliseconds
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Returns how long the absence of a player may be cached.
+     * @return the time-to-live in milliseconds
+     */
+    public long getMissingTtl() {
+        return missingTtl;
+    }
+
+    /**
+     * Returns the circuit breaker of this endpoint.
+     * <br>It takes effect through the {@link EndpointTransport}, or any other
+     * {@link io.felixtech.mcpit.util.CircuitBreakerTransport} installed by the application.
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,79 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.CircuitBreakerTransport;
+import io.felixtech.mcpit.util.HedgingTransport;
+import io.felixtech.mcpit.util.HttpRequest;
+import io.felixtech.mcpit.util.HttpResponse;
+import io.felixtech.mcpit.util.HttpTransport;
+import io.felixtech.mcpit.util.MeasuringTransport;
+import io.felixtech.mcpit.util.ThrottledTransport;
+import io.felixtech.mcpit.util.URLConnectionTransport;
+import io.felixtech.mcpit.util.URLReader;
+
+import java.io.IOException;
+
+/**
+ * The transport stack for the {@link Endpoint endpoints}, installed in {@link URLReader} when
+ * {@link MinecraftPlayerInfo} is first used, unless the application set its own transport.
+ * <br>From the outside in, the {@link io.felixtech.mcpit.util.CircuitBreaker} of an endpoint rejects requests while
+ * the endpoint fails, the {@link ThrottledTransport} keeps the rate limits of the hosts, the {@link HedgingTransport}
+ * hedges slow attempts if the throttle has a permit to spare and the {@link MeasuringTransport} records every attempt
+ * in the {@link Metrics} of its endpoint. Requests to other URLs are only throttled.
+ */
+public final class EndpointTransport implements HttpTransport {
+    private final ThrottledTransport throttle;
+    private final HedgingTransport hedging;
+    private final HttpTransport stack;
+
+    /**
+     * Creates a new {@code EndpointTransport}.
+     * @param network the transport which sends the requests over the network
+     */
+    public EndpointTransport(HttpTransport network) {
+        MeasuringTransport measuring = new MeasuringTransport(network, request -> {
+            Endpoint endpoint = Endpoint.of(request.getUrl());
+            return endpoint == null ? null : Metrics.of(endpoint);
+        });
+
+        // hedges are timed and sent below the throttle, so waiting for a permit never triggers one
+        this.hedging = new HedgingTransport(measuring, request -> {
+            Endpoint endpoint = Endpoint.of(request.getUrl());
+            return endpoint == null ? null : Metrics.of(endpoint).getLatency();
+        });
+        this.throttle = new ThrottledTransport(hedging);
+        this.hedging.setPermits(request -> throttle.getBucket(request.getUrl().getHost()).tryAcquire());
+        this.stack = new CircuitBreakerTransport(throttle, request -> {
+            Endpoint endpoint = Endpoint.of(request.getUrl());
+            return endpoint == null ? null : endpoint.getCircuitBreaker();
+        });
+    }
+
+    /**
+     * Installs a new {@code EndpointTransport} sending requests with a {@link URLConnectionTransport}, unless a
+     * transport was set before.
+     */
+    static void install() {
+        URLReader.setDefaultTransport(new EndpointTransport(new URLConnectionTransport()));
+    }
+
+    /**
+     * Returns the rate limiter, e.g. to configure the rates of the hosts.
+     * @return the throttled transport
+     */
+    public ThrottledTransport getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Returns the hedging transport, e.g. to configure when requests are hedged.
+     * @return the hedging transport
+     */
+    public HedgingTransport getHedging() {
+        return hedging;
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        return stack.send(request);
+    }
+}
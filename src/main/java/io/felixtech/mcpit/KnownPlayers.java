@@ -0,0 +1,112 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.NameIndex;
+import io.felixtech.mcpit.util.PrefixTrie;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The players looked up before, searchable by a prefix of their current name or UUID.
+ * <br>Seeded in the background from the {@link MinecraftPlayerInfo#getNameIndex() name index} and extended by every
+ * lookup of this session.
+ */
+final class KnownPlayers {
+    private final PrefixTrie<Player> players = new PrefixTrie<>();
+
+    KnownPlayers() {
+        Thread loader = new Thread(this::load, "known-players");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Adds a looked up player, replacing a previously known entry of the same user.
+     * @param profile the profile of the player
+     */
+    void remember(PlayerProfile profile) {
+        add(new Player(profile.getName(), profile.getId(), profile));
+    }
+
+    /**
+     * Finds the players whose current name or UUID start with a prefix.
+     * @param prefix the case-insensitive prefix, UUIDs may contain dashes
+     * @param limit the maximum number of players
+     * @return the players, ordered by name or UUID
+     */
+    List<Player> suggest(String prefix, int limit) {
+        String key = prefix.trim().toLowerCase(Locale.ROOT).replace("-", "");
+
+        if (key.isEmpty())
+            return new ArrayList<>();
+
+        Set<Player> found = new LinkedHashSet<>(players.complete(key, limit));
+        return new ArrayList<>(found);
+    }
+
+    private void load() {
+        NameIndex index = MinecraftPlayerInfo.getNameIndex();
+
+        if (index == null)
+            return;
+
+        for (String uuid : index.getUUIDs()) {
+            List<NameIndex.Change> history = index.getHistory(uuid);
+
+            if (!history.isEmpty() && players.complete(uuid, 1).isEmpty())
+                add(new Player(history.get(history.size() - 1).getName(), uuid, null));
+        }
+    }
+
+    private void add(Player player) {
+        // names never contain dashes, so both kinds of keys can share one trie
+        players.put(player.name.toLowerCase(Locale.ROOT), player);
+        players.put(player.uuid.toLowerCase(Locale.ROOT), player);
+    }
+
+    /**
+     * A known player.
+     */
+    static final class Player {
+        private final String name;
+        private final String uuid;
+        private final PlayerProfile profile;
+
+        private Player(String name, String uuid, PlayerProfile profile) {
+            this.name = name;
+            this.uuid = uuid;
+            this.profile = profile;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getUUID() {
+            return uuid;
+        }
+
+        /**
+         * Returns the complete profile if the player was looked up by name in this session.
+         * @return the profile or {@code null} if only the name history of the player is known
+         */
+        PlayerProfile getProfile() {
+            return profile;
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Player && uuid.equalsIgnoreCase(((Player) o).uuid);
+        }
+
+        @Override public int hashCode() {
+            return uuid.toLowerCase(Locale.ROOT).hashCode();
+        }
+
+        @Override public String toString() {
+            return name + "  (" + uuid + ")";
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.Deadline;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the steps of a player lookup on a background executor and hands the results back to the event dispatch thread.
+ * <br>Starting a new lookup cancels the previous one, so results of a replaced lookup are never delivered.
+ * <br>Every lookup has to finish within the {@link MinecraftPlayerInfo#getLookupTimeout() lookup timeout}; each step
+ * gets its share of the time left when it starts.
+ */
+final class LookupPipeline {
+    private final ExecutorService executor;
+    private Lookup current = null;
+
+    LookupPipeline() {
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "lookup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Cancels the running lookup (if any) and starts a new one.
+     * <br>Must be called on the event dispatch thread.
+     * @return the new lookup
+     */
+    Lookup start() {
+        if (current != null)
+            current.cancel();
+
+        current = new Lookup();
+        return current;
+    }
+
+    final class Lookup {
+        private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+        private final Map<String, Long> timings = new ConcurrentHashMap<>();
+        private final Deadline deadline = Deadline.after(MinecraftPlayerInfo.getLookupTimeout());
+        private volatile boolean cancelled = false;
+
+        /**
+         * Runs a step of the lookup on the executor.
+         * @param stage the name of the step, used for its timing
+         * @param stages the number of sequential steps left including this one, the step gets this share of the time
+         *               left
+         * @param step the step to run
+         * @param <T> the result type of the step
+         * @return the future result of the step
+         */
+        <T> CompletableFuture<T> submit(String stage, int stages, Callable<T> step) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+
+            tasks.add(executor.submit(() -> {
+                if (cancelled) {
+                    result.cancel(false);
+                    return;
+                }
+
+                long start = System.nanoTime();
+
+                try {
+                    result.complete(deadline.share(stages).call(step::call));
+                } catch(Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    timings.put(stage, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }));
+
+            return result;
+        }
+
+        /**
+         * Runs a step of the lookup on the executor as soon as the step it depends on has completed successfully.
+         * @param stage the name of the step, used for its timing
+         * @param stages the number of sequential steps left including this one
+         * @param dependency the step this step depends on
+         * @param step the step to run
+         * @param <S> the result type of the dependency
+         * @param <T> the result type of the step
+         * @return the future result of the step
+         */
+        <S, T> CompletableFuture<T> then(String stage, int stages, CompletableFuture<S> dependency, Step<S, T> step) {
+            return dependency.thenCompose(value -> submit(stage, stages, () -> step.apply(value)));
+        }
+
+        /**
+         * Returns how long each finished step took.
+         * @return a map with the name of the step as key and its duration in milliseconds as value
+         */
+        Map<String, Long> getTimings() {
+            return timings;
+        }
+
+        /**
+         * Delivers the result of a step on the event dispatch thread, unless the lookup has been cancelled meanwhile.
+         * @param future the future result of the step
+         * @param onSuccess called with the result if the step succeeded
+         * @param onFailure called with the cause if the step failed
+         * @param <T> the result type of the step
+         */
+        <T> void deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<Throwable> onFailure) {
+            future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+                if (cancelled)
+                    return;
+
+                if (error == null)
+                    onSuccess.accept(value);
+                else
+                    onFailure.accept(unwrap(error));
+            }));
+        }
+
+        /**
+         * Checks if this lookup has been replaced by a newer one.
+         * @return true if the lookup has been cancelled
+         */
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void cancel() {
+            cancelled = true;
+
+            for (Future<?> task : tasks)
+                task.cancel(true);
+        }
+    }
+
+    /**
+     * A step of a lookup which depends on the result of another step.
+     * @param <S> the result type of the dependency
+     * @param <T> the result type of the step
+     */
+    @FunctionalInterface
+    interface Step<S, T> {
+        T apply(S value) throws Exception;
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null)
+            t = t.getCause();
+
+        return t;
+    }
+}
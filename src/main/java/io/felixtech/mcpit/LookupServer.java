@@ -0,0 +1,364 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.CircuitOpenException;
+import io.felixtech.mcpit.util.Deadline;
+import io.felixtech.mcpit.util.HttpStatusException;
+import io.felixtech.mcpit.util.NoSuchPlayerException;
+import io.felixtech.mcpit.util.TaskExecutors;
+import io.felixtech.mcpit.util.UUIDs;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Headless server mode: answers lookups of other local tools over a small JSON HTTP API.
+ * <br>All clients share the caches, the rate limiter and the connections of this process, so they are throttled by
+ * Mojang as one client instead of each on their own. Requests are served by a fixed pool of workers; the server only
+ * listens on the loopback interface unless told otherwise.
+ * <table>
+ *     <caption>Endpoints</caption>
+ *     <tr><td>{@code GET /profile/<name>}</td><td>the profile of a player</td></tr>
+ *     <tr><td>{@code GET /names/<name|uuid>}</td><td>the name history of a player</td></tr>
+ *     <tr><td>{@code GET /session/<name|uuid>}</td><td>the session profile of a player with decoded properties</td></tr>
+ *     <tr><td>{@code GET /player/<name|uuid>}</td><td>everything about a player, in the format of the batch mode</td></tr>
+ *     <tr><td>{@code POST /batch}</td><td>a JSON array of up to 100 names or UUIDs, answered with an array of the
+ *     {@code /player} results in the same order</td></tr>
+ *     <tr><td>{@code GET /metrics}</td><td>a snapshot of the metrics</td></tr>
+ * </table>
+ * Arguments which are neither a valid name nor a UUID are answered with 400, unknown players with 404, timeouts with
+ * 504. Endpoints cut off by their circuit breaker without a last known response are answered with 503, just like
+ * requests Mojang still throttled after all retries, which additionally carry a {@code Retry-After} header. Other
+ * failures of the Mojang API are answered with 502.
+ */
+final class LookupServer {
+    private static final int MAX_BATCH = 100;
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final String DEFAULT_RETRY_AFTER = "5";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_]{1,16}");
+
+    static {
+        // small responses are otherwise held back by Nagle's algorithm until the client acknowledges the headers
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private String bind = "127.0.0.1";
+    private int port = 8080;
+    private int threads = 16;
+    private long timeout = MinecraftPlayerInfo.getLookupTimeout();
+
+    private ExecutorService fetches;
+
+    private LookupServer() {}
+
+    /**
+     * Runs the server mode.
+     * @param args the command line arguments following {@code --server}
+     * @return the exit code
+     */
+    static int run(String[] args) {
+        LookupServer server = new LookupServer();
+
+        try {
+            server.parse(args);
+        } catch(IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: --server [--bind <address>] [--port <n>] [--threads <n>] [--timeout <ms>]");
+            return 2;
+        }
+
+        try {
+            return server.execute();
+        } catch(IOException e) {
+            System.err.println("Server failed: " + e);
+            return 1;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+
+            String value = args[++i];
+
+            try {
+                switch (option) {
+                    case "--bind":
+                        bind = value;
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(value);
+                        if (port < 0 || port > 65535) throw new IllegalArgumentException("Invalid port: " + value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be greater than zero!");
+                        break;
+                    case "--timeout":
+                        timeout = Long.parseLong(value);
+                        if (timeout <= 0) throw new IllegalArgumentException("Timeout must be greater than zero!");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            } catch(NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+            }
+        }
+    }
+
+    private int execute() throws IOException, InterruptedException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, daemon("server-worker"));
+        CountDownLatch stopped = new CountDownLatch(1);
+
+        fetches = TaskExecutors.newTaskExecutor("server-fetch");
+
+        server.setExecutor(workers);
+        server.createContext("/profile/", exchange -> serve(exchange, "/profile/", LookupServer::isName,
+                name -> MinecraftPlayerInfo.getProfile(name).toJSON()));
+        server.createContext("/names/", exchange -> serve(exchange, "/names/", LookupServer::isPlayer,
+                player -> MinecraftPlayerInfo.getNameHistory(MinecraftPlayerInfo.getUUID(player)).toJSON()));
+        server.createContext("/session/", exchange -> serve(exchange, "/session/", LookupServer::isPlayer,
+                player -> MinecraftPlayerInfo.getSessionProfile(MinecraftPlayerInfo.getUUID(player)).toJSON()));
+        server.createContext("/player/", exchange -> serve(exchange, "/player/", LookupServer::isPlayer, this::player));
+        server.createContext("/batch", this::batch);
+        server.createContext("/metrics", exchange -> serve(exchange, "/metrics", String::isEmpty, path -> Metrics.snapshot()));
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            workers.shutdownNow();
+            fetches.shutdownNow();
+            stopped.countDown();
+        }));
+
+        server.start();
+        System.err.println("Listening on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        stopped.await();
+        return 0;
+    }
+
+    /**
+     * Answers a {@code GET} request for a single player.
+     * @param prefix the path of the endpoint, the rest of the path is the argument
+     * @param accepts checks the argument before the query is sent
+     */
+    private void serve(HttpExchange exchange, String prefix, Predicate<String> accepts, Query query) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("method_not_allowed"));
+            return;
+        }
+
+        String argument = exchange.getRequestURI().getPath().substring(prefix.length());
+
+        if (!accepts.test(argument)) {
+            respond(exchange, 400, error("invalid_argument"));
+            return;
+        }
+
+        int status = 200;
+        Object body;
+
+        try {
+            body = Deadline.after(timeout).call(() -> query.answer(argument));
+        } catch(NoSuchPlayerException e) {
+            status = 404;
+            body = error("not_found");
+        } catch(SocketTimeoutException e) {
+            status = 504;
+            body = error("timeout");
+        } catch(CircuitOpenException e) {
+            status = 503;
+            body = error("unavailable");
+        } catch(HttpStatusException e) {
+            if (e.getStatus() == TOO_MANY_REQUESTS) {
+                // still throttled after all retries: the client should back off, not treat Mojang as broken
+                status = 503;
+                body = error("throttled");
+                exchange.getResponseHeaders().set("Retry-After", e.getRetryAfter() != null ? e.getRetryAfter() : DEFAULT_RETRY_AFTER);
+            } else {
+                status = 502;
+                body = error(String.valueOf(e));
+            }
+        } catch(IOException | RuntimeException e) {
+            status = 502;
+            body = error(String.valueOf(e));
+        }
+
+        respond(exchange, status, body);
+    }
+
+    /**
+     * Looks up everything about a player.
+     */
+    private Object player(String player) throws IOException {
+        BatchLookup.Result result = BatchLookup.lookup(player, Deadline.current(), fetches, false);
+
+        if (result.getFailure() instanceof IOException) throw (IOException) result.getFailure();
+        if (result.getFailure() != null) throw (RuntimeException) result.getFailure();
+
+        return result.getJSON();
+    }
+
+    /**
+     * Looks up many players at once.
+     * <br>All names are resolved with the bulk endpoint first, so the single lookups find their profiles in the cache.
+     */
+    private void batch(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            drain(exchange.getRequestBody());
+            respond(exchange, 405, error("method_not_allowed"));
+            return;
+        }
+
+        List<String> players = new ArrayList<>();
+
+        try {
+            JSONArray request = new JSONArray(new String(drain(exchange.getRequestBody()), StandardCharsets.UTF_8));
+
+            for (int i = 0; i < request.length(); i++)
+                players.add(request.getString(i).trim());
+        } catch(JSONException | IOException e) {
+            respond(exchange, 400, error("Expected a JSON array of names or UUIDs of at most " + MAX_BODY + " bytes"));
+            return;
+        }
+
+        for (String player : players) {
+            if (!isPlayer(player)) {
+                respond(exchange, 400, error("Invalid name or UUID: " + player));
+                return;
+            }
+        }
+
+        if (players.size() > MAX_BATCH) {
+            respond(exchange, 400, error("Batch must not contain more than " + MAX_BATCH + " players!"));
+            return;
+        }
+
+        Deadline deadline = Deadline.after(timeout);
+        List<String> names = new ArrayList<>();
+
+        for (String player : players)
+            if (!UUIDs.isUUID(player))
+                names.add(player);
+
+        if (!names.isEmpty()) {
+            try {
+                deadline.share(2).run(() -> MinecraftPlayerInfo.resolveUUIDs(names));
+            } catch(IOException e) {
+                // every lookup reports the failure on its own
+            }
+        }
+
+        List<Future<BatchLookup.Result>> lookups = new ArrayList<>(players.size());
+
+        for (String player : players)
+            lookups.add(fetches.submit(() -> BatchLookup.lookup(player, deadline, fetches, false)));
+
+        JSONArray results = new JSONArray();
+
+        try {
+            for (Future<BatchLookup.Result> lookup : lookups)
+                results.put(lookup.get().getJSON());
+        } catch(ExecutionException e) {
+            respond(exchange, 500, error(String.valueOf(e.getCause())));
+            return;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        respond(exchange, 200, results);
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static boolean isName(String argument) {
+        return NAME.matcher(argument).matches();
+    }
+
+    private static boolean isPlayer(String argument) {
+        return isName(argument) || UUIDs.isUUID(argument);
+    }
+
+    private static JSONObject error(String error) {
+        return new JSONObject().put("error", error);
+    }
+
+    /**
+     * Reads a request body completely, so the connection can be reused.
+     * @throws IOException thrown if the body is larger than allowed
+     */
+    private static byte[] drain(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = body.read(buffer)) != -1) {
+                if (out.size() + read > MAX_BODY) throw new IOException("Request body too large");
+                out.write(buffer, 0, read);
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Answers a query for a single player.
+     */
+    @FunctionalInterface
+    private interface Query {
+        Object answer(String argument) throws IOException;
+    }
+}
@@ -1,13 +1,61 @@
 package io.felixtech.mcpit;
 
+import io.felixtech.mcpit.util.NameIndex;
+import io.felixtech.mcpit.util.RecordingTransport;
+import io.felixtech.mcpit.util.ReplayTransport;
+import io.felixtech.mcpit.util.ResponseCache;
+import io.felixtech.mcpit.util.SkinCache;
+import io.felixtech.mcpit.util.URLReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
 import javax.swing.*;
 
 public final class Main {
+    private static final String USAGE = "Usage: [--record <archive> | --replay <archive> [--replay-miss fail|fall-through]] [--batch ... | --watch ... | --server ... | --who ...]";
+
     private Main() {}
 
     public static void main(String[] args) {
+        int first;
+
+        try {
+            first = configureTransport(args);
+        } catch(IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        } catch(IOException e) {
+            System.err.println("Can't open the response archive: " + e);
+            System.exit(1);
+            return;
+        }
+
+        if (args.length > first && args[first].equals("--batch")) {
+            System.exit(BatchLookup.run(Arrays.copyOfRange(args, first + 1, args.length)));
+            return;
+        }
+
+        if (args.length > first && args[first].equals("--watch")) {
+            System.exit(WatchMode.run(Arrays.copyOfRange(args, first + 1, args.length)));
+            return;
+        }
+
+        if (args.length > first && args[first].equals("--server")) {
+            System.exit(LookupServer.run(Arrays.copyOfRange(args, first + 1, args.length)));
+            return;
+        }
+
+        if (args.length > first && args[first].equals("--who")) {
+            System.exit(NameQuery.run(Arrays.copyOfRange(args, first + 1, args.length)));
+            return;
+        }
+
         try {
-            JFrame window = new PlayerInfoWindow();
+            PlayerInfoWindow window = new PlayerInfoWindow();
 
             SwingUtilities.invokeAndWait(() -> {
                 window.setVisible(true);
@@ -16,4 +64,71 @@ public final class Main {
             JOptionPane.showMessageDialog(null, "An unknown error occured!\n" + t, "Unknown Error", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    /**
+     * Parses the leading {@code --record}/{@code --replay} options and installs the matching transport on top of the
+     * {@link EndpointTransport}.
+     * @return the index of the first remaining argument
+     */
+    private static int configureTransport(String[] args) throws IOException {
+        File record = null, replay = null;
+        ReplayTransport.MissPolicy missPolicy = ReplayTransport.MissPolicy.FAIL;
+        int i = 0;
+
+        for (; i < args.length && (args[i].equals("--record") || args[i].equals("--replay") || args[i].equals("--replay-miss")); i += 2) {
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+
+            String value = args[i + 1];
+
+            switch (args[i]) {
+                case "--record":
+                    record = new File(value);
+                    break;
+                case "--replay":
+                    replay = new File(value);
+                    break;
+                default:
+                    try {
+                        missPolicy = ReplayTransport.MissPolicy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    } catch(IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid miss policy: " + value);
+                    }
+            }
+        }
+
+        if (record != null && replay != null)
+            throw new IllegalArgumentException("--record and --replay can't be combined");
+
+        EndpointTransport.install();
+
+        if (record != null) {
+            RecordingTransport transport = new RecordingTransport(URLReader.getTransport(), record);
+            URLReader.setTransport(transport);
+            useMemoryCaches();
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    transport.close();
+                } catch(IOException e) {
+                    System.err.println(e);
+                }
+            }));
+        } else if (replay != null) {
+            URLReader.setTransport(new ReplayTransport(replay, missPolicy, URLReader.getTransport()));
+            useMemoryCaches();
+            MinecraftPlayerInfo.setNameIndex(new NameIndex(null));
+        }
+
+        return i;
+    }
+
+    /**
+     * Replaces the persistent caches, so every response of a recording session reaches the archive and a replay
+     * session is answered by the archive instead of a cache filled by earlier sessions.
+     */
+    private static void useMemoryCaches() {
+        MinecraftPlayerInfo.setCache(new ResponseCache(10000, null));
+        MinecraftPlayerInfo.setSkinCache(new SkinCache(32L * 1024 * 1024, null));
+    }
 }
@@ -0,0 +1,160 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.CircuitBreaker;
+import io.felixtech.mcpit.util.EndpointMetrics;
+import io.felixtech.mcpit.util.ResponseCache;
+import io.felixtech.mcpit.util.SkinCache;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.json.JSONObject;
+
+/**
+ * Built-in metrics of all remote endpoints and caches.
+ * <br>The metrics are published as JMX MBeans in the domain {@code io.felixtech.mcpit} and can be dumped as a JSON
+ * snapshot.
+ */
+public final class Metrics {
+    private static final String DOMAIN = "io.felixtech.mcpit";
+    private static final Map<Endpoint, EndpointMetrics> ENDPOINTS = new EnumMap<>(Endpoint.class);
+    private static final CacheMetrics CACHES = new CacheMetrics();
+
+    static {
+        for (Endpoint endpoint : Endpoint.values())
+            ENDPOINTS.put(endpoint, new EndpointMetrics());
+
+        register();
+    }
+
+    private Metrics() {}
+
+    /**
+     * Returns the metrics of an endpoint.
+     * @param endpoint the endpoint
+     * @return the metrics of the endpoint
+     */
+    public static EndpointMetrics of(Endpoint endpoint) {
+        return ENDPOINTS.get(endpoint);
+    }
+
+    /**
+     * Returns the metrics of the caches.
+     * @return the cache metrics
+     */
+    public static CacheMetricsMXBean caches() {
+        return CACHES;
+    }
+
+    /**
+     * Returns a snapshot of all metrics.
+     * @return the metrics in the JSON format
+     */
+    public static JSONObject snapshot() {
+        JSONObject endpoints = new JSONObject();
+
+        for (Map.Entry<Endpoint, EndpointMetrics> endpoint : ENDPOINTS.entrySet())
+            endpoints.put(name(endpoint.getKey()), endpoint.getValue().toJSON()
+                    .put("circuit", circuit(endpoint.getKey().getCircuitBreaker())));
+
+        JSONObject caches = new JSONObject()
+                .put("response", new JSONObject()
+                        .put("hits", CACHES.getResponseCacheHits())
+                        .put("misses", CACHES.getResponseCacheMisses())
+                        .put("hitRatio", CACHES.getResponseCacheHitRatio())
+                        .put("staleHits", CACHES.getResponseCacheStaleHits())
+                        .put("writeFailures", CACHES.getResponseCacheWriteFailures()))
+                .put("skin", new JSONObject()
+                        .put("hits", CACHES.getSkinCacheHits())
+                        .put("misses", CACHES.getSkinCacheMisses())
+                        .put("hitRatio", CACHES.getSkinCacheHitRatio())
+                        .put("memoryBytes", CACHES.getSkinCacheMemorySize()))
+                .put("coalescedQueries", CACHES.getCoalescedQueries());
+
+        return new JSONObject().put("timestamp", System.currentTimeMillis()).put("endpoints", endpoints).put("caches", caches);
+    }
+
+    private static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            for (Map.Entry<Endpoint, EndpointMetrics> endpoint : ENDPOINTS.entrySet()) {
+                ObjectName name = new ObjectName(DOMAIN + ":type=Endpoint,name=" + name(endpoint.getKey()));
+                if (!server.isRegistered(name)) server.registerMBean(endpoint.getValue(), name);
+            }
+
+            ObjectName name = new ObjectName(DOMAIN + ":type=Cache");
+            if (!server.isRegistered(name)) server.registerMBean(CACHES, name);
+        } catch(JMException | SecurityException e) {
+            System.err.println("Can't register metrics: " + e);
+        }
+    }
+
+    private static JSONObject circuit(CircuitBreaker breaker) {
+        return new JSONObject()
+                .put("state", breaker.getState().name().toLowerCase(Locale.ROOT))
+                .put("failureRate", breaker.getFailureRate())
+                .put("timesOpened", breaker.getTimesOpened())
+                .put("rejected", breaker.getRejected());
+    }
+
+    private static String name(Endpoint endpoint) {
+        return endpoint.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    private static final class CacheMetrics implements CacheMetricsMXBean {
+        @Override public long getResponseCacheHits() {
+            ResponseCache cache = MinecraftPlayerInfo.getCache();
+            return cache == null ? 0 : cache.getHits();
+        }
+
+        @Override public long getResponseCacheMisses() {
+            ResponseCache cache = MinecraftPlayerInfo.getCache();
+            return cache == null ? 0 : cache.getMisses();
+        }
+
+        @Override public double getResponseCacheHitRatio() {
+            return ratio(getResponseCacheHits(), getResponseCacheMisses());
+        }
+
+        @Override public long getResponseCacheStaleHits() {
+            ResponseCache cache = MinecraftPlayerInfo.getCache();
+            return cache == null ? 0 : cache.getStaleHits();
+        }
+
+        @Override public long getResponseCacheWriteFailures() {
+            ResponseCache cache = MinecraftPlayerInfo.getCache();
+            return cache == null ? 0 : cache.getWriteFailures();
+        }
+
+        @Override public long getSkinCacheHits() {
+            SkinCache cache = MinecraftPlayerInfo.getSkinCache();
+            return cache.getMemoryHits() + cache.getDiskHits();
+        }
+
+        @Override public long getSkinCacheMisses() {
+            return MinecraftPlayerInfo.getSkinCache().getMisses();
+        }
+
+        @Override public double getSkinCacheHitRatio() {
+            return ratio(getSkinCacheHits(), getSkinCacheMisses());
+        }
+
+        @Override public long getSkinCacheMemorySize() {
+            return MinecraftPlayerInfo.getSkinCache().getMemorySize();
+        }
+
+        @Override public long getCoalescedQueries() {
+            return MinecraftPlayerInfo.getCoalescedQueries();
+        }
+    }
+}
@@ -1,51 +1,199 @@
 package io.felixtech.mcpit;
 
 import io.felixtech.mcpit.util.NoSuchPlayerException;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.URL;
-import java.util.Base64;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import io.felixtech.mcpit.util.HttpRequest;
+import io.felixtech.mcpit.util.JsonFieldReader;
+import io.felixtech.mcpit.util.NameIndex;
+import io.felixtech.mcpit.util.ResponseCache;
+import io.felixtech.mcpit.util.SingleFlight;
+import io.felixtech.mcpit.util.SkinCache;
 import io.felixtech.mcpit.util.URLReader;
+import io.felixtech.mcpit.util.UUIDs;
 import org.json.*;
 
 /**
  * Java-Interface for the Minecraft Mojang API
  */
 public final class MinecraftPlayerInfo {
+    private static final int BULK_SIZE = 10;
+    private static final JsonFieldReader.Fields PROFILE_FIELDS = new JsonFieldReader.Fields("id", "name", "legacy", "demo");
+    private static final JsonFieldReader.Fields NAME_FIELDS = new JsonFieldReader.Fields("name", "changedToAt");
+
+    private static final SingleFlight<String, byte[]> IN_FLIGHT = new SingleFlight<>();
+    private static final ExecutorService REFRESHES = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile ResponseCache cache = new ResponseCache(10000,
+            new File(System.getProperty("user.home"), ".mcpit" + File.separator + "cache"));
+
+    private static volatile SkinCache skinCache = new SkinCache(32L * 1024 * 1024,
+            new File(System.getProperty("user.home"), ".mcpit" + File.separator + "skins"));
+
+    private static volatile NameIndex nameIndex = new NameIndex(
+            new File(System.getProperty("user.home"), ".mcpit" + File.separator + "names.idx"));
+
+    private static final Map<String, Long> REFRESHED = new ConcurrentHashMap<>();
+    private static final int MAX_REFRESHED = 1000;
+
+    private static volatile long lookupTimeout = 10000;
+
+    static {
+        EndpointTransport.install();
+    }
+
     private MinecraftPlayerInfo() {}
 
     /**
-     * Gets the current player name of a user.
+     * Returns the cache in front of the API endpoints.
+     * @return the response cache or {@code null} if caching is disabled
+     */
+    public static ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Replaces the cache in front of the API endpoints.
+     * @param cache the new response cache or {@code null} to disable caching
+     */
+    public static void setCache(ResponseCache cache) {
+        MinecraftPlayerInfo.cache = cache;
+    }
+
+    /**
+     * Returns the cache for skin textures and renders.
+     * @return the skin cache
+     */
+    public static SkinCache getSkinCache() {
+        return skinCache;
+    }
+
+    /**
+     * Replaces the cache for skin textures and renders.
+     * @param skinCache the new skin cache
+     */
+    public static void setSkinCache(SkinCache skinCache) {
+        if (skinCache == null) throw new IllegalArgumentException("Skin cache must not be null!");
+        MinecraftPlayerInfo.skinCache = skinCache;
+    }
+
+    /**
+     * Returns the index storing every fetched name history.
+     * @return the name index or {@code null} if histories are not stored
+     */
+    public static NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * Replaces the index storing every fetched name history.
+     * @param nameIndex the new name index or {@code null} to not store histories
+     */
+    public static void setNameIndex(NameIndex nameIndex) {
+        MinecraftPlayerInfo.nameIndex = nameIndex;
+    }
+
+    /**
+     * Returns the time a complete lookup of a player (profile, names, session and skin) may take.
+     * @return the timeout in milliseconds
+     */
+    public static long getLookupTimeout() {
+        return lookupTimeout;
+    }
+
+    /**
+     * Configures the time a complete lookup of a player may take.
+     * <br>The time is split across the sequential stages of a lookup, see {@link io.felixtech.mcpit.util.Deadline}.
+     * @param lookupTimeout the timeout in milliseconds
+     * @throws IllegalArgumentException thrown if the timeout is not greater than zero
+     */
+    public static void setLookupTimeout(long lookupTimeout) {
+        if (lookupTimeout <= 0) throw new IllegalArgumentException("Lookup timeout must be greater than zero!");
+        MinecraftPlayerInfo.lookupTimeout = lookupTimeout;
+    }
+
+    /**
+     * Returns how many queries were answered by sharing the response of an identical query which was already running.
+     * @return the number of coalesced queries
+     */
+    public static long getCoalescedQueries() {
+        return IN_FLIGHT.getCoalesced();
+    }
+
+    /**
+     * Gets the profile of a user with a single query.
      * @param name the name of the user
-     * @return the current player name
+     * @return the profile of the user
      * @throws IOException thrown if the query failed
      * @throws NoSuchPlayerException thrown if the user doesn't exist
      */
-    public static String getCurrentName(String name) throws IOException {
+    public static PlayerProfile getProfile(String name) throws IOException {
         try {
-            JSONObject uuid_at_time = new JSONObject(new URLReader(new URL("https://api.mojang.com/users/profiles/minecraft/" + name)).readAll());
-            return uuid_at_time.getString("name");
+            Body body = fetch(Endpoint.PROFILE, name);
+            return parseProfile(new JsonFieldReader(body.bytes), body.stale);
         } catch(JSONException e) {
             throw new NoSuchPlayerException();
         }
     }
 
+    /**
+     * Gets the current player name of a user.
+     * <br>For a UUID the name is taken from the session profile.
+     * @param name the name or the UUID (with or without dashes) of the user
+     * @return the current player name
+     * @throws IOException thrown if the query failed
+     * @throws NoSuchPlayerException thrown if the user doesn't exist
+     */
+    public static String getCurrentName(String name) throws IOException {
+        UUID id = UUIDs.parse(name);
+        return id == null ? getProfile(name).getName() : getSessionProfile(UUIDs.format(id)).getName();
+    }
+
     /**
      * Gets the UUID of a user.
-     * @param name the name of the user
+     * <br>A UUID is returned without dashes and without any query.
+     * @param name the name or the UUID (with or without dashes) of the user
      * @return the UUID of the user
      * @throws IOException thrown if the query failed
      * @throws NoSuchPlayerException thrown if the user doesn't exist
      */
     public static String getUUID(String name) throws IOException {
-        try {
-            JSONObject uuid_at_time = new JSONObject(new URLReader(new URL("https://api.mojang.com/users/profiles/minecraft/" + name)).readAll());
-            return uuid_at_time.getString("id");
-        } catch(JSONException e) {
-            throw new NoSuchPlayerException();
-        }
+        UUID id = UUIDs.parse(name);
+        return id == null ? getProfile(name).getId() : UUIDs.format(id);
+    }
+
+    /**
+     * Checks if a player input is a UUID instead of a player name.
+     * <br>Player names are at most 16 characters long, so a UUID with or without dashes is never a name.
+     * @param input the input, e.g. pasted from a server log
+     * @return true if the input is a UUID with or without dashes
+     */
+    public static boolean isUUID(String input) {
+        return UUIDs.isUUID(input);
     }
 
     /**
@@ -56,9 +204,8 @@ public final class MinecraftPlayerInfo {
      */
     public static boolean getLegacy(String name) throws IOException {
         try {
-            JSONObject uuid_at_time = new JSONObject(new URLReader(new URL("https://api.mojang.com/users/profiles/minecraft/" + name)).readAll());
-            return uuid_at_time.getBoolean("legacy");
-        } catch(JSONException e) {
+            return getProfile(name).isLegacy();
+        } catch(NoSuchPlayerException e) {
             return false;
         }
     }
@@ -71,38 +218,224 @@ public final class MinecraftPlayerInfo {
      */
     public static boolean getDemo(String name) throws IOException {
         try {
-            JSONObject uuid_at_time = new JSONObject(new URLReader(new URL("https://api.mojang.com/users/profiles/minecraft/" + name)).readAll());
-            return uuid_at_time.getBoolean("demo");
-        } catch(JSONException e) {
+            return getProfile(name).isDemo();
+        } catch(NoSuchPlayerException e) {
             return false;
         }
     }
 
+    /**
+     * Resolves many player names at once using the bulk profile endpoint.
+     * @param names the names of the users
+     * @return the profiles of the resolved names and the names which don't exist
+     * @throws IOException thrown if a query failed
+     * @see #resolveUUIDs(Collection, int)
+     */
+    public static NameResolution resolveUUIDs(Collection<String> names) throws IOException {
+        return resolveUUIDs(names, 4);
+    }
+
+    /**
+     * Resolves many player names at once using the bulk profile endpoint.
+     * <br>Names which are already cached are answered from the cache, all other names are sent in chunks of ten
+     * names per request.
+     * @param names the names of the users
+     * @param maxConcurrency the maximum number of requests running at the same time
+     * @return the profiles of the resolved names and the names which don't exist
+     * @throws IOException thrown if a query failed
+     * @throws IllegalArgumentException thrown if the maximum concurrency is not greater than zero
+     */
+    public static NameResolution resolveUUIDs(Collection<String> names, int maxConcurrency) throws IOException {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("Maximum concurrency must be greater than zero!");
+
+        ResponseCache cache = MinecraftPlayerInfo.cache;
+        Map<String, PlayerProfile> profiles = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        Map<String, List<String>> pending = new LinkedHashMap<>();
+
+        for (String name : names) {
+            ResponseCache.CachedResponse entry = cache == null ? null : cache.get(Endpoint.PROFILE.key(name));
+
+            if (entry != null) {
+                if (entry.isMissing())
+                    missing.add(name);
+                else
+                    profiles.put(name, parseProfile(new JsonFieldReader(entry.getBody()), false));
+            } else if (name.trim().isEmpty()) {
+                missing.add(name);
+            } else {
+                pending.computeIfAbsent(name.toLowerCase(Locale.ROOT), key -> new ArrayList<>()).add(name);
+            }
+        }
+
+        if (pending.isEmpty())
+            return new NameResolution(profiles, missing);
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = null;
+
+        for (String name : pending.keySet()) {
+            if (chunk == null || chunk.size() == BULK_SIZE) {
+                chunk = new ArrayList<>(BULK_SIZE);
+                chunks.add(chunk);
+            }
+
+            chunk.add(name);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrency, chunks.size()));
+
+        try {
+            List<Future<byte[]>> responses = new ArrayList<>(chunks.size());
+
+            for (List<String> request : chunks)
+                responses.add(executor.submit(() -> URLReader.execute(
+                        HttpRequest.post(Endpoint.BULK_PROFILES.url(""), "application/json", new JSONArray(request).toString())).getBody()));
+
+            for (int i = 0; i < chunks.size(); i++) {
+                Map<String, PlayerProfile> found = new HashMap<>();
+                byte[] body = responses.get(i).get();
+                JsonFieldReader json = new JsonFieldReader(body);
+                json.beginArray();
+
+                while (json.hasNextElement()) {
+                    int start = json.getPosition();
+                    PlayerProfile profile = parseProfile(json, false);
+                    found.put(profile.getName().toLowerCase(Locale.ROOT), profile);
+
+                    if (cache != null) cache.put(Endpoint.PROFILE.key(profile.getName()),
+                            Arrays.copyOfRange(body, start, json.getPosition()), Endpoint.PROFILE.getTtl());
+                }
+
+                for (String name : chunks.get(i)) {
+                    PlayerProfile profile = found.get(name);
+
+                    if (profile == null && cache != null)
+                        cache.putMissing(Endpoint.PROFILE.key(name), Endpoint.PROFILE.getMissingTtl());
+
+                    for (String requested : pending.get(name)) {
+                        if (profile == null)
+                            missing.add(requested);
+                        else
+                            profiles.put(requested, profile);
+                    }
+                }
+            }
+        } catch(ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new NameResolution(profiles, missing);
+    }
+
     /**
      * Gets all names the user ever had and the change-time.
      * @param uuid the uuid of the user
      * @return a map with the username as key and the time when this username was activated as value. The username with value 0 is the registration name.
-     * @throws IOException thrown if the user doesn't exist or the query failed
+     * @throws IOException thrown if the query failed
+     * @throws NoSuchPlayerException thrown if the user doesn't exist
+     * @deprecated a map can't hold a name the user had more than once; use {@link #getNameHistory(String)}
      */
+    @Deprecated
     public static Map<String, Long> getAllNames(String uuid) throws IOException {
-        Map<String, Long> names = new HashMap<>();
+        NameHistory history = getNameHistory(uuid, false);
+        Map<String, Long> names = new LinkedHashMap<>();
+
+        for (int i = 0; i < history.size(); i++)
+            names.put(history.getName(i), history.getChangedToAt(i));
 
-        JSONArray all_names = new JSONArray(new URLReader(new URL("https://api.mojang.com/user/profiles/" + uuid + "/names")).readAll());
+        return names;
+    }
 
-        for (Object object : all_names) {
-            JSONObject jso = (JSONObject) object;
-            long changedToAt;
+    /**
+     * Gets all names the user ever had, ordered by the time they were activated.
+     * @param uuid the uuid of the user (with or without dashes)
+     * @return the name history of the user
+     * @throws IOException thrown if the query failed
+     * @throws NoSuchPlayerException thrown if the user doesn't exist
+     */
+    public static NameHistory getNameHistory(String uuid) throws IOException {
+        return getNameHistory(uuid, false);
+    }
 
-            try {
-                changedToAt = jso.getLong("changedToAt");
-            } catch(JSONException e) {
-                changedToAt = 0;
+    /**
+     * Fetches the name history of a user and stores it in the {@link #getNameIndex() name index}.
+     * @param fresh true to bypass the cache, e.g. to poll for changes
+     */
+    static NameHistory getNameHistory(String uuid, boolean fresh) throws IOException {
+        uuid = normalize(uuid);
+        String[] names = new String[4];
+        long[] changes = new long[4];
+        int size = 0;
+
+        Body body = fetch(Endpoint.NAMES, uuid, fresh);
+        JsonFieldReader json = new JsonFieldReader(body.bytes);
+        json.beginArray();
+
+        while (json.hasNextElement()) {
+            String name = null;
+            long changedToAt = 0;
+
+            json.beginObject();
+
+            for (int field; (field = json.nextField(NAME_FIELDS)) != JsonFieldReader.END; ) {
+                switch (field) {
+                    case 0: name = json.nextString(); break;
+                    case 1: changedToAt = json.nextLong(); break;
+                    default: json.skipValue();
+                }
+            }
+
+            if (name == null) throw new JSONException("Name history entry without name");
+
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                changes = Arrays.copyOf(changes, size * 2);
             }
 
-            names.put(jso.getString("name"), changedToAt);
+            names[size] = name;
+            changes[size++] = changedToAt;
         }
 
-        return names;
+        NameHistory history = new NameHistory(names, changes, size, body.stale);
+        NameIndex index = MinecraftPlayerInfo.nameIndex;
+
+        if (index != null && !body.stale)
+            index.put(uuid, history.toList());
+
+        return history;
+    }
+
+    /**
+     * Gets the session profile (skin, cape) of a user.
+     * <br>The properties of the profile are only decoded when they are accessed.
+     * @param uuid the uuid of the user (with or without dashes)
+     * @return the session profile of the user
+     * @throws IOException thrown if the query failed
+     * @throws NoSuchPlayerException thrown if the user doesn't exist
+     */
+    public static SessionProfile getSessionProfile(String uuid) throws IOException {
+        return getSessionProfile(uuid, false);
+    }
+
+    /**
+     * Gets the session profile (skin, cape) of a user.
+     * @param fresh true to bypass the cache, e.g. to poll for changes
+     */
+    static SessionProfile getSessionProfile(String uuid, boolean fresh) throws IOException {
+        try {
+            Body body = fetch(Endpoint.SESSION, normalize(uuid), fresh);
+            return SessionProfile.parse(body.bytes, body.stale);
+        } catch(JSONException e) {
+            throw new NoSuchPlayerException();
+        }
     }
 
     /**
@@ -111,22 +444,12 @@ public final class MinecraftPlayerInfo {
      * @return the user information in the JSON format
      * @throws IOException thrown if the query failed
      * @throws NoSuchPlayerException thrown if the user doesn't exist
+     * @see #getSessionProfile(String)
      */
     public static JSONObject getInfoJSON(String uuid) throws IOException {
         try {
-            JSONObject player_info = new JSONObject(new URLReader(new URL("https://sessionserver.mojang.com/session/minecraft/profile/" + uuid)).readAll());
-            JSONArray properties = player_info.getJSONArray("properties");
-
-            for (Object property_object : properties) {
-                JSONObject property = (JSONObject) property_object;
-                String raw = property.getString("value");
-                String data = new String(Base64.getDecoder().decode(raw));
-                JSONObject data_json = new JSONObject(data);
-                property.put("value", data_json);
-            }
-
-            return player_info;
-        } catch(JSONException e) {
+            return getSessionProfile(uuid).toJSON();
+        } catch(JSONException | IllegalArgumentException e) {
             throw new NoSuchPlayerException();
         }
     }
@@ -140,17 +463,174 @@ public final class MinecraftPlayerInfo {
      */
     @Deprecated
     public static JSONObject getTextureInfo(String uuid, String property) throws IOException {
-        JSONObject player_info = getInfoJSON(uuid);
-        JSONArray player_properties = player_info.getJSONArray("properties");
-        JSONObject value;
-
-        int i;
-        for (i = 0; i < player_properties.length(); i++) {
-            value = player_properties.getJSONObject(i);
-            if (value.getString("name").equals("textures")) break;
+        SessionProfile.Property textures = getSessionProfile(uuid).getProperty("textures");
+
+        if (textures == null)
+            throw new IOException("The user has no textures");
+
+        return textures.getDecodedJSON().getJSONObject(property);
+    }
+
+    /**
+     * Reads a profile object, pulling only the fields of {@link PlayerProfile} from the raw response.
+     */
+    private static PlayerProfile parseProfile(JsonFieldReader json, boolean stale) {
+        String id = null, name = null;
+        boolean legacy = false, demo = false;
+
+        json.beginObject();
+
+        for (int field; (field = json.nextField(PROFILE_FIELDS)) != JsonFieldReader.END; ) {
+            switch (field) {
+                case 0: id = json.nextString(); break;
+                case 1: name = json.nextString(); break;
+                case 2: legacy = json.nextBoolean(); break;
+                case 3: demo = json.nextBoolean(); break;
+                default: json.skipValue();
+            }
+        }
+
+        if (id == null || name == null) throw new JSONException("Profile without id or name");
+        return new PlayerProfile(id, name, legacy, demo, stale);
+    }
+
+    /**
+     * Queries an endpoint, answering from the cache where possible.
+     * <br>Concurrent queries of the same endpoint and argument are coalesced into a single request.
+     * <br>If the endpoint is unavailable, the last known response is served instead, even if its cache entry has
+     * expired. While the {@link Endpoint#getCircuitBreaker() circuit breaker} of the endpoint is open, such a response
+     * is served at once and refreshed in the background; the refresh doubles as probe for the recovery of the endpoint.
+     * @param endpoint the endpoint to query
+     * @param argument the player name or UUID to query
+     * @return the UTF-8 encoded response body, marked if it is stale
+     * @throws IOException thrown if the query failed
+     * @throws NoSuchPlayerException thrown if the user doesn't exist
+     */
+    private static Body fetch(Endpoint endpoint, String argument) throws IOException {
+        return fetch(endpoint, argument, false);
+    }
+
+    /**
+     * Queries an endpoint.
+     * @param fresh true to always send a request, without falling back to the last known response; the response is
+     *              cached nevertheless
+     */
+    private static Body fetch(Endpoint endpoint, String argument, boolean fresh) throws IOException {
+        ResponseCache cache = MinecraftPlayerInfo.cache;
+        String key = endpoint.key(argument);
+
+        if (cache != null && !fresh) {
+            ResponseCache.CachedResponse entry = cache.get(key);
+
+            if (entry != null) {
+                if (entry.isMissing()) throw new NoSuchPlayerException();
+                return new Body(entry.getBody(), false);
+            }
+
+            if (!endpoint.getCircuitBreaker().isClosed()) {
+                entry = cache.getStale(key);
+
+                if (entry != null) {
+                    refresh(endpoint, argument, key, cache);
+                    return stale(entry);
+                }
+            }
+        }
+
+        try {
+            return new Body(IN_FLIGHT.execute(key, () -> load(endpoint, argument, key, cache)), false);
+        } catch(IOException e) {
+            ResponseCache.CachedResponse entry = cache == null || fresh ? null : cache.getStale(key);
+
+            if (entry == null)
+                throw e;
+
+            return stale(entry);
+        }
+    }
+
+    /**
+     * Queries an endpoint in the background to replace a stale response.
+     * <br>Every key is refreshed at most once per cool-down of the circuit breaker, so stale hits on an unavailable
+     * endpoint don't queue a refresh each.
+     */
+    private static void refresh(Endpoint endpoint, String argument, String key, ResponseCache cache) {
+        long now = System.nanoTime();
+        long coolDown = TimeUnit.MILLISECONDS.toNanos(endpoint.getCircuitBreaker().getCoolDown());
+        Long last = REFRESHED.get(key);
+
+        if (last != null && now - last < coolDown)
+            return;
+
+        // another thread started the refresh in the meantime
+        if (last == null ? REFRESHED.putIfAbsent(key, now) != null : !REFRESHED.replace(key, last, now))
+            return;
+
+        if (REFRESHED.size() > MAX_REFRESHED)
+            REFRESHED.values().removeIf(time -> now - time >= coolDown);
+
+        REFRESHES.execute(() -> {
+            try {
+                IN_FLIGHT.execute(key, () -> load(endpoint, argument, key, cache));
+            } catch(IOException | RuntimeException e) {
+                // the stale response stays in use until a later refresh succeeds
+            }
+        });
+    }
+
+    private static Body stale(ResponseCache.CachedResponse entry) {
+        if (entry.isMissing()) throw new NoSuchPlayerException();
+        return new Body(entry.getBody(), entry.isExpired());
+    }
+
+    /**
+     * Queries an endpoint over the network and caches the response.
+     */
+    private static byte[] load(Endpoint endpoint, String argument, String key, ResponseCache cache) throws IOException {
+        byte[] body;
+
+        try {
+            body = URLReader.readBytes(endpoint.url(argument));
+        } catch(FileNotFoundException e) {
+            body = new byte[0];
+        }
+
+        if (isBlank(body)) {
+            if (cache != null) cache.putMissing(key, endpoint.getMissingTtl());
+            throw new NoSuchPlayerException();
         }
 
-        value = player_properties.getJSONObject(i).getJSONObject("value");
-        return value.getJSONObject(property);
+        if (cache != null) cache.put(key, body, endpoint.getTtl());
+        return body;
+    }
+
+    /**
+     * Converts a UUID into the form used by the API, so dashed and undashed UUIDs share their cache entries.
+     * Anything else is passed on unchanged and answered by the API.
+     */
+    private static String normalize(String uuid) {
+        UUID id = UUIDs.parse(uuid);
+        return id == null ? uuid : UUIDs.format(id);
+    }
+
+    private static boolean isBlank(byte[] body) {
+        for (byte b : body)
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t')
+                return false;
+
+        return true;
+    }
+
+    /**
+     * A response body and whether it was served from an expired cache entry.
+     */
+    private static final class Body {
+        private final byte[] bytes;
+        private final boolean stale;
+
+        private Body(byte[] bytes, boolean stale) {
+            this.bytes = bytes;
+            this.stale = stale;
+        }
     }
 }
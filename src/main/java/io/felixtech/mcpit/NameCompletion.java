@@ -0,0 +1,122 @@
+package io.felixtech.mcpit;
+
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+/**
+ * A dropdown below the player name field suggesting {@link KnownPlayers known players}.
+ * <br>Suggestions are updated shortly after the user stopped typing. Choosing a suggestion (arrow keys and enter or a
+ * click) hands the known player to a callback instead of starting a lookup by name.
+ */
+final class NameCompletion extends KeyAdapter {
+    private static final int DELAY = 150;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final KnownPlayers players;
+    private final Consumer<KnownPlayers.Player> onChoose;
+
+    private final DefaultListModel<KnownPlayers.Player> model = new DefaultListModel<>();
+    private final JList<KnownPlayers.Player> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer debounce;
+
+    NameCompletion(JTextField field, KnownPlayers players, Consumer<KnownPlayers.Player> onChoose) {
+        this.field = field;
+        this.players = players;
+        this.onChoose = onChoose;
+
+        debounce = new Timer(DELAY, ev -> update());
+        debounce.setRepeats(false);
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent ev) {
+                int index = list.locationToIndex(ev.getPoint());
+
+                if (index >= 0)
+                    choose(model.get(index));
+            }
+        });
+
+        popup.setFocusable(false);
+        popup.add(list);
+
+        field.addKeyListener(this);
+    }
+
+    /**
+     * Hides the dropdown, e.g. when a lookup is started by name.
+     */
+    void hide() {
+        debounce.stop();
+        popup.setVisible(false);
+    }
+
+    @Override public void keyTyped(KeyEvent ev) {
+        char c = ev.getKeyChar();
+
+        if (c != '\n' && c != KeyEvent.VK_ESCAPE)
+            debounce.restart();
+    }
+
+    @Override public void keyPressed(KeyEvent ev) {
+        if (!popup.isVisible())
+            return;
+
+        switch (ev.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(list.getSelectedIndex() + 1, model.size() - 1));
+                ev.consume();
+                break;
+            case KeyEvent.VK_UP:
+                list.setSelectedIndex(Math.max(list.getSelectedIndex() - 1, 0));
+                ev.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (list.getSelectedValue() != null) {
+                    choose(list.getSelectedValue());
+                    ev.consume();
+                } else {
+                    hide();
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                ev.consume();
+                break;
+            default:
+        }
+    }
+
+    private void update() {
+        List<KnownPlayers.Player> suggestions = players.suggest(field.getText(), MAX_SUGGESTIONS);
+
+        model.clear();
+
+        for (KnownPlayers.Player player : suggestions)
+            model.addElement(player);
+
+        if (suggestions.isEmpty() || !field.isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        list.setVisibleRowCount(suggestions.size());
+        popup.setPopupSize(Math.max(field.getWidth(), list.getPreferredSize().width + 4), list.getPreferredSize().height + 4);
+        popup.show(field, 0, field.getHeight());
+        field.requestFocusInWindow();
+    }
+
+    private void choose(KnownPlayers.Player player) {
+        hide();
+        field.setText(player.getName());
+        onChoose.accept(player);
+    }
+}
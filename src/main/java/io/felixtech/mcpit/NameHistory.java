@@ -0,0 +1,215 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.NameIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Immutable name history of a user, ordered by the time each name was activated.
+ * <br>The history is stored in two parallel arrays instead of a map of boxed values, so it keeps names used more than
+ * once, costs little memory when many histories are held at once and answers {@link #nameAt(long)} by binary search.
+ */
+public final class NameHistory implements Iterable<NameIndex.Change> {
+    private static final NameHistory EMPTY = new NameHistory(new String[0], new long[0], 0);
+
+    private final String[] names;
+    private final long[] changedToAt;
+    private final boolean stale;
+
+    /**
+     * Creates a new {@code NameHistory} from the first entries of two parallel arrays.
+     * <br>The arrays are taken over, not copied; entries out of order are sorted by time.
+     */
+    NameHistory(String[] names, long[] changedToAt, int size) {
+        this(names, changedToAt, size, false);
+    }
+
+    /**
+     * Creates a new {@code NameHistory} from the first entries of two parallel arrays.
+     * @param stale true if the history was served from an expired cache entry
+     */
+    NameHistory(String[] names, long[] changedToAt, int size, boolean stale) {
+        this.stale = stale;
+        this.names = names.length == size ? names : Arrays.copyOf(names, size);
+        this.changedToAt = changedToAt.length == size ? changedToAt : Arrays.copyOf(changedToAt, size);
+
+        // histories are short and almost always ordered already, so insertion sort runs in linear time
+        for (int i = 1; i < size; i++) {
+            String name = this.names[i];
+            long time = this.changedToAt[i];
+            int j = i;
+
+            for (; j > 0 && this.changedToAt[j - 1] > time; j--) {
+                this.names[j] = this.names[j - 1];
+                this.changedToAt[j] = this.changedToAt[j - 1];
+            }
+
+            this.names[j] = name;
+            this.changedToAt[j] = time;
+        }
+    }
+
+    /**
+     * Creates a name history from single name changes.
+     * @param changes the name changes in any order
+     * @return the name history
+     */
+    public static NameHistory of(List<NameIndex.Change> changes) {
+        String[] names = new String[changes.size()];
+        long[] changedToAt = new long[changes.size()];
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = changes.get(i).getName();
+            changedToAt[i] = changes.get(i).getChangedToAt();
+        }
+
+        return new NameHistory(names, changedToAt, names.length);
+    }
+
+    /**
+     * Returns the empty name history.
+     * @return a history without names
+     */
+    public static NameHistory empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of names in the history.
+     * @return the number of names
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Checks if the history has no names.
+     * @return true if the history is empty
+     */
+    public boolean isEmpty() {
+        return names.length == 0;
+    }
+
+    /**
+     * Returns a name of the history.
+     * @param index the position of the name, 0 being the registration name
+     * @return the name
+     * @throws IndexOutOfBoundsException thrown if the index is not less than the size of the history
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the time at which a name of the history was activated.
+     * @param index the position of the name, 0 being the registration name
+     * @return the time in milliseconds since the epoch or 0 for the registration name
+     * @throws IndexOutOfBoundsException thrown if the index is not less than the size of the history
+     */
+    public long getChangedToAt(int index) {
+        return changedToAt[index];
+    }
+
+    /**
+     * Returns the latest name of the history.
+     * @return the current name or {@code null} if the history is empty
+     */
+    public String getCurrentName() {
+        return names.length == 0 ? null : names[names.length - 1];
+    }
+
+    /**
+     * Finds the name the user had at a point in time.
+     * @param time the time in milliseconds since the epoch
+     * @return the name or {@code null} if the history has no name activated at or before that time
+     */
+    public String nameAt(long time) {
+        int low = 0, high = changedToAt.length;
+
+        // finds the first entry activated after the time
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (changedToAt[mid] <= time)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low == 0 ? null : names[low - 1];
+    }
+
+    /**
+     * Checks if the history is the last known one, served from an expired cache entry because the API is unavailable.
+     * <br>Staleness is not part of {@link #equals(Object)}.
+     * @return true if the history may be outdated
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Converts the history into single name changes.
+     * @return the name changes ordered by time
+     */
+    public List<NameIndex.Change> toList() {
+        List<NameIndex.Change> changes = new ArrayList<>(names.length);
+
+        for (int i = 0; i < names.length; i++)
+            changes.add(new NameIndex.Change(names[i], changedToAt[i]));
+
+        return changes;
+    }
+
+    /**
+     * Converts the history into the JSON format of the name history API, including the time 0 of the registration name.
+     * @return the history in the JSON format
+     */
+    public JSONArray toJSON() {
+        JSONArray json = new JSONArray();
+
+        for (int i = 0; i < names.length; i++)
+            json.put(new JSONObject().put("name", names[i]).put("changedToAt", changedToAt[i]));
+
+        return json;
+    }
+
+    @Override public Iterator<NameIndex.Change> iterator() {
+        return new Iterator<NameIndex.Change>() {
+            private int next = 0;
+
+            @Override public boolean hasNext() {
+                return next < names.length;
+            }
+
+            @Override public NameIndex.Change next() {
+                if (next >= names.length) throw new NoSuchElementException();
+
+                NameIndex.Change change = new NameIndex.Change(names[next], changedToAt[next]);
+                next++;
+                return change;
+            }
+        };
+    }
+
+    @Override public boolean equals(Object o) {
+        if (!(o instanceof NameHistory)) return false;
+        NameHistory other = (NameHistory) o;
+        return Arrays.equals(names, other.names) && Arrays.equals(changedToAt, other.changedToAt);
+    }
+
+    @Override public int hashCode() {
+        return 31 * Arrays.hashCode(names) + Arrays.hashCode(changedToAt);
+    }
+
+    @Override public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,85 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.NameIndex;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+
+/**
+ * Answers "who held this name" from the local {@link NameIndex} without querying the API.
+ * <br>Only histories fetched earlier (in the GUI or in batch mode) are known. Times of name changes are printed as
+ * ISO-8601 instants in UTC, so they can be passed back as the point in time.
+ */
+final class NameQuery {
+    private NameQuery() {}
+
+    /**
+     * Runs the query.
+     * @param args the command line arguments following {@code --who}: a name and optionally a point in time
+     *             ({@code yyyy-mm-dd} in UTC or an ISO-8601 instant)
+     * @return the exit code
+     */
+    static int run(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: --who <name> [<yyyy-mm-dd>|<instant>]");
+            return 2;
+        }
+
+        NameIndex index = MinecraftPlayerInfo.getNameIndex();
+
+        if (index == null) {
+            System.err.println("No name index configured");
+            return 1;
+        }
+
+        if (args.length == 2) {
+            long time;
+
+            try {
+                time = parseTime(args[1]);
+            } catch(DateTimeParseException e) {
+                System.err.println("Invalid point in time: " + args[1]);
+                return 2;
+            }
+
+            String uuid = index.getHolder(args[0], time);
+
+            if (uuid == null)
+                return 3;
+
+            print(index, uuid);
+            return 0;
+        }
+
+        Set<String> holders = index.getHolders(args[0]);
+
+        for (String uuid : holders)
+            print(index, uuid);
+
+        return holders.isEmpty() ? 3 : 0;
+    }
+
+    private static void print(NameIndex index, String uuid) {
+        StringBuilder line = new StringBuilder(uuid);
+
+        for (NameIndex.Change change : index.getHistory(uuid)) {
+            line.append("  ").append(change.getName());
+
+            if (change.getChangedToAt() != 0)
+                line.append(" (").append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(change.getChangedToAt()))).append(')');
+        }
+
+        System.out.println(line);
+    }
+
+    private static long parseTime(String value) {
+        if (value.length() == 10)
+            return LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        return Instant.parse(value).toEpochMilli();
+    }
+}
@@ -0,0 +1,44 @@
+package io.felixtech.mcpit;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of resolving many player names at once.
+ * <br>Every requested name is either resolved to a profile or reported as missing.
+ */
+public final class NameResolution {
+    private final Map<String, PlayerProfile> profiles;
+    private final Set<String> missing;
+
+    NameResolution(Map<String, PlayerProfile> profiles, Set<String> missing) {
+        this.profiles = Collections.unmodifiableMap(profiles);
+        this.missing = Collections.unmodifiableSet(missing);
+    }
+
+    /**
+     * Returns the profiles of all resolved names.
+     * @return a map with the requested name as key and the profile of the user as value
+     */
+    public Map<String, PlayerProfile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Returns the requested names which don't belong to any user.
+     * @return the names which couldn't be resolved
+     */
+    public Set<String> getMissing() {
+        return missing;
+    }
+
+    /**
+     * Returns the profile of a requested name.
+     * @param name the requested name
+     * @return the profile of the user or {@code null} if the name couldn't be resolved
+     */
+    public PlayerProfile get(String name) {
+        return profiles.get(name);
+    }
+}
@@ -15,9 +15,11 @@ import javax.swing.*;
 
 public final class PlayerInfoWindow extends JFrame {
     final JTextField currentName, uuid, legacy, demo, requestTime;
-    private final JList<String> allNames;
+    final JList<String> allNames;
     final DefaultListModel<String> allNamesModel;
     final JTextArea details;
+    final JLabel status;
+    final NameCompletion completion;
     ImagePanel skin = null;
     private final JScrollPane allNamesScrollPane, detailsScrollPane;
     private final JButton ok;
@@ -31,6 +33,7 @@ public final class PlayerInfoWindow extends JFrame {
 
         currentName = new JTextField();
         currentName.setDocument(new MaxSizeDocument(50));
+        completion = new NameCompletion(currentName, listener.getKnownPlayers(), listener::choose);
         currentName.addKeyListener(listener);
 
         uuid = new JTextField();
@@ -66,6 +69,10 @@ public final class PlayerInfoWindow extends JFrame {
 
         skin = new ImagePanel((Image) null);
 
+        status = new JLabel(" ");
+        status.setFont(status.getFont().deriveFont(Font.PLAIN, status.getFont().getSize2D() - 1));
+        status.setForeground(Color.GRAY);
+
         super.setResizable(false);
         super.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         super.setLocationRelativeTo(null);
@@ -101,6 +108,8 @@ public final class PlayerInfoWindow extends JFrame {
         add(gbl, skin, 2, 0, 2, 10, BOTH, CENTER);
 
         add(gbl, requestTime, 2, 11, 2, 1, VERTICAL);
+
+        add(gbl, status, 0, 12, 4, 1);
     }
 
     private void add(GridBagLayout gbl, Component component, int x, int y, int width, int height) {
@@ -0,0 +1,85 @@
+package io.felixtech.mcpit;
+
+import org.json.JSONObject;
+
+/**
+ * Immutable snapshot of a users profile as returned by the Mojang profile API.
+ */
+public final class PlayerProfile {
+    private final String id;
+    private final String name;
+    private final boolean legacy;
+    private final boolean demo;
+    private final boolean stale;
+
+    /**
+     * Creates a new {@code PlayerProfile}.
+     * @param id the UUID of the user (without dashes)
+     * @param name the current player name of the user
+     * @param legacy true if the user has a legacy account
+     * @param demo true if the user has demo status
+     */
+    public PlayerProfile(String id, String name, boolean legacy, boolean demo) {
+        this(id, name, legacy, demo, false);
+    }
+
+    PlayerProfile(String id, String name, boolean legacy, boolean demo, boolean stale) {
+        this.id = id;
+        this.name = name;
+        this.legacy = legacy;
+        this.demo = demo;
+        this.stale = stale;
+    }
+
+    /**
+     * Returns the UUID of the user.
+     * @return the UUID of the user (without dashes)
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the current player name of the user.
+     * @return the current player name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Checks if the user uses a legacy account.
+     * @return true if the user has a legacy account, false if the user has a Mojang account
+     */
+    public boolean isLegacy() {
+        return legacy;
+    }
+
+    /**
+     * Checks if the user has demo status.
+     * @return true if the user has demo status, false if the user has premium status
+     */
+    public boolean isDemo() {
+        return demo;
+    }
+
+    /**
+     * Checks if the profile is the last known one, served from an expired cache entry because the API is unavailable.
+     * @return true if the profile may be outdated
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Converts the profile into the JSON format of the profile API.
+     * @return the profile in the JSON format
+     */
+    public JSONObject toJSON() {
+        return new JSONObject().put("id", id).put("name", name).put("legacy", legacy).put("demo", demo);
+    }
+
+    @Override public String toString() {
+        return "PlayerProfile[id=" + id + ", name=" + name + ", legacy=" + legacy + ", demo=" + demo + "]";
+    }
+}
@@ -0,0 +1,151 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.SkinCache;
+
+/**
+ * Immutable snapshot of everything known about a player: profile, name history and textures.
+ * <br>Records can be stored compactly with a {@link PlayerRecordWriter} and read back with a {@link PlayerRecordReader}.
+ */
+public final class PlayerRecord {
+    private final String id;
+    private final String name;
+    private final boolean legacy;
+    private final boolean demo;
+    private final NameHistory history;
+    private final String skinHash;
+    private final String capeHash;
+    private final boolean slim;
+    private final long timestamp;
+
+    /**
+     * Creates a new {@code PlayerRecord}.
+     * @param id the UUID of the user (without dashes)
+     * @param name the current player name of the user
+     * @param legacy true if the user has a legacy account
+     * @param demo true if the user has demo status
+     * @param history the name history of the user
+     * @param skinHash the hash of the skin texture or {@code null} for a default skin
+     * @param capeHash the hash of the cape texture or {@code null} if the user has no cape
+     * @param slim true if the skin uses the slim model
+     * @param timestamp the time at which the textures information was issued in milliseconds since the epoch
+     */
+    public PlayerRecord(String id, String name, boolean legacy, boolean demo, NameHistory history,
+                        String skinHash, String capeHash, boolean slim, long timestamp) {
+        this.id = id;
+        this.name = name;
+        this.legacy = legacy;
+        this.demo = demo;
+        this.history = history;
+        this.skinHash = skinHash;
+        this.capeHash = capeHash;
+        this.slim = slim;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Creates a record from the results of the single queries.
+     * @param profile the profile of the user or {@code null} if the user was looked up by UUID
+     * @param history the name history of the user
+     * @param session the session profile of the user
+     * @return the record
+     */
+    public static PlayerRecord of(PlayerProfile profile, NameHistory history, SessionProfile session) {
+        return new PlayerRecord(session.getId(), session.getName(),
+                profile != null && profile.isLegacy(), profile != null && profile.isDemo(), history,
+                session.getSkinUrl() == null ? null : SkinCache.hashOf(session.getSkinUrl()),
+                session.getCapeUrl() == null ? null : SkinCache.hashOf(session.getCapeUrl()),
+                session.isSlim(), session.getTimestamp());
+    }
+
+    /**
+     * Returns the UUID of the user.
+     * @return the UUID of the user (without dashes)
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the current player name of the user.
+     * @return the current player name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Checks if the user has a legacy account.
+     * @return true for a legacy account
+     */
+    public boolean isLegacy() {
+        return legacy;
+    }
+
+    /**
+     * Checks if the user has demo status.
+     * @return true for a demo account
+     */
+    public boolean isDemo() {
+        return demo;
+    }
+
+    /**
+     * Returns the name history of the user.
+     * @return the name history
+     */
+    public NameHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Returns the hash of the skin texture.
+     * @return the hash or {@code null} if the user uses a default skin
+     */
+    public String getSkinHash() {
+        return skinHash;
+    }
+
+    /**
+     * Returns the hash of the cape texture.
+     * @return the hash or {@code null} if the user has no cape
+     */
+    public String getCapeHash() {
+        return capeHash;
+    }
+
+    /**
+     * Checks if the skin uses the slim (Alex) model.
+     * @return true for the slim model
+     */
+    public boolean isSlim() {
+        return slim;
+    }
+
+    /**
+     * Returns the time at which the textures information was issued.
+     * @return the timestamp in milliseconds since the epoch or 0 if unknown
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override public boolean equals(Object o) {
+        if (!(o instanceof PlayerRecord)) return false;
+        PlayerRecord other = (PlayerRecord) o;
+        return id.equals(other.id) && name.equals(other.name) && legacy == other.legacy && demo == other.demo
+                && history.equals(other.history) && equal(skinHash, other.skinHash) && equal(capeHash, other.capeHash)
+                && slim == other.slim && timestamp == other.timestamp;
+    }
+
+    @Override public int hashCode() {
+        return 31 * id.hashCode() + Long.hashCode(timestamp);
+    }
+
+    @Override public String toString() {
+        return name + " (" + id + ")";
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,244 @@
+package io.felixtech.mcpit;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams {@link PlayerRecord player records} written by a {@link PlayerRecordWriter}.
+ * <br>Records are read one at a time, so files of any size can be processed. A truncated last record (e.g. after the
+ * writing process was killed) is treated as the end of the file and reported by {@link #isTruncated()}.
+ */
+public final class PlayerRecordReader implements Closeable {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final DataInputStream in;
+    private byte[] buffer = new byte[256];
+    private int position;
+    private int limit;
+    private long offset = 5; // the magic number and the version
+    private boolean truncated = false;
+
+    /**
+     * Creates a new {@code PlayerRecordReader} reading a file.
+     * @param file the file to read
+     * @throws IOException thrown if the file can't be opened or is not a record file
+     */
+    public PlayerRecordReader(File file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * Creates a new {@code PlayerRecordReader} reading a stream.
+     * @param in the stream to read
+     * @throws IOException thrown if the stream can't be read or is not a record stream
+     */
+    public PlayerRecordReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 65536));
+
+        try {
+            checkHeader(this.in);
+        } catch(IOException e) {
+            this.in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     * @return the record or {@code null} at the end of the file
+     * @throws IOException thrown if the file can't be read or is corrupt
+     */
+    public PlayerRecord read() throws IOException {
+        long start = offset;
+        long recordLength = readLength();
+
+        if (recordLength < 0) {
+            offset = start;
+            return null;
+        }
+
+        if (recordLength > Integer.MAX_VALUE) throw new IOException("Corrupt player record");
+
+        if (buffer.length < recordLength)
+            buffer = new byte[Math.max(buffer.length * 2, (int) recordLength)];
+
+        try {
+            in.readFully(buffer, 0, (int) recordLength);
+        } catch(EOFException e) {
+            truncated = true;
+            offset = start;
+            return null;
+        }
+
+        offset += recordLength;
+        position = 0;
+        limit = (int) recordLength;
+
+        try {
+            int flags = readByte();
+            String id = hex(readLong(), 16) + hex(readLong(), 16);
+            String name = readString();
+            long timestamp = readVarLong();
+            String skinHash = (flags & PlayerRecordWriter.SKIN) != 0 ? readHash() : null;
+            String capeHash = (flags & PlayerRecordWriter.CAPE) != 0 ? readHash() : null;
+
+            long count = readVarLong();
+            if (count > (limit - position) / 2) throw new IndexOutOfBoundsException(); // every entry takes at least two bytes
+
+            String[] names = new String[(int) count];
+            long[] changes = new long[(int) count];
+            long changedToAt = 0;
+
+            for (int i = 0; i < count; i++) {
+                changedToAt += readVarLong();
+                changes[i] = changedToAt;
+                names[i] = readString();
+            }
+
+            return new PlayerRecord(id, name, (flags & PlayerRecordWriter.LEGACY) != 0, (flags & PlayerRecordWriter.DEMO) != 0,
+                    new NameHistory(names, changes, names.length), skinHash, capeHash, (flags & PlayerRecordWriter.SLIM) != 0, timestamp);
+        } catch(IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt player record");
+        }
+    }
+
+    /**
+     * Checks if the file ended within a record, e.g. because the writing process was killed.
+     * @return true if {@link #read()} returned {@code null} because the last record was truncated
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the length of the file up to the end of the last complete record read.
+     * @return the offset in bytes, including the header
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Checks the magic number and the version of a record file.
+     * @throws IOException thrown if the stream is not a record stream of a supported version
+     */
+    static void checkHeader(DataInputStream in) throws IOException {
+        try {
+            if (in.readInt() != PlayerRecordWriter.MAGIC) throw new IOException("Not a player record file");
+
+            int version = in.readUnsignedByte();
+            if (version != PlayerRecordWriter.VERSION) throw new IOException("Unsupported player record version: " + version);
+        } catch(EOFException e) {
+            throw new IOException("Not a player record file");
+        }
+    }
+
+    /**
+     * Reads the length prefix of a record.
+     * @return the length or -1 at the end of the stream
+     */
+    private long readLength() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+
+            if (b < 0) {
+                if (shift > 0) truncated = true;
+                return -1;
+            }
+
+            offset++;
+
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Corrupt player record");
+    }
+
+    private String readHash() {
+        long header = readVarLong();
+        int length = (int) (header >>> 1);
+
+        if ((header & 1) != 0) {
+            if (position + length > limit) throw new IndexOutOfBoundsException();
+
+            String hash = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return hash;
+        }
+
+        char[] digits = new char[length];
+
+        for (int i = 0; i < length; i += 2) {
+            int b = readByte();
+            digits[i] = HEX[b >>> 4];
+
+            if (i + 1 < length)
+                digits[i + 1] = HEX[b & 0xF];
+        }
+
+        return new String(digits);
+    }
+
+    private String readString() {
+        int length = (int) readVarLong();
+        if (position + length > limit) throw new IndexOutOfBoundsException();
+
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private long readLong() {
+        long value = 0;
+
+        for (int i = 0; i < 8; i++)
+            value = value << 8 | readByte();
+
+        return value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IndexOutOfBoundsException();
+    }
+
+    private int readByte() {
+        if (position >= limit) throw new IndexOutOfBoundsException();
+        return buffer[position++] & 0xFF;
+    }
+
+    private static String hex(long value, int digits) {
+        char[] chars = new char[digits];
+
+        for (int i = digits - 1; i >= 0; i--, value >>>= 4)
+            chars[i] = HEX[(int) (value & 0xF)];
+
+        return new String(chars);
+    }
+}
@@ -0,0 +1,219 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.UUIDs;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Writes {@link PlayerRecord player records} in a compact binary format.
+ * <br>A file starts with a magic number and the format version, followed by the records. Every record is prefixed by
+ * its length, so readers can skip fields added by later versions and files can simply be appended to. The UUID is
+ * stored as two longs, texture hashes as packed hex digits and numbers as variable-length integers; the name history
+ * is stored as time deltas.
+ * @see PlayerRecordReader
+ */
+public final class PlayerRecordWriter implements Closeable, Flushable {
+    static final int MAGIC = 0x4D435052; // "MCPR"
+    static final int VERSION = 1;
+
+    static final int LEGACY = 1;
+    static final int DEMO = 1 << 1;
+    static final int SLIM = 1 << 2;
+    static final int SKIN = 1 << 3;
+    static final int CAPE = 1 << 4;
+
+    private final OutputStream out;
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    /**
+     * Creates a new {@code PlayerRecordWriter} writing to a file.
+     * <br>Before appending, a truncated last record (e.g. after the writing process was killed) is cut off, so the new
+     * records directly follow the last complete one.
+     * @param file the file to write to
+     * @param append true to append to an existing file, false to overwrite it
+     * @throws IOException thrown if the file can't be opened or is not a record file
+     */
+    public PlayerRecordWriter(File file, boolean append) throws IOException {
+        boolean header = !append || !file.isFile() || file.length() == 0;
+
+        if (!header) {
+            long complete;
+
+            try (PlayerRecordReader in = new PlayerRecordReader(file)) {
+                while (in.read() != null) {
+                    // skip to the end of the last complete record
+                }
+
+                complete = in.getOffset();
+            }
+
+            if (complete < file.length()) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(complete);
+                }
+            }
+        }
+
+        this.out = new BufferedOutputStream(new FileOutputStream(file, append), 65536);
+
+        if (header)
+            writeHeader();
+    }
+
+    /**
+     * Creates a new {@code PlayerRecordWriter} writing a new stream.
+     * @param out the stream to write to
+     * @throws IOException thrown if the header can't be written
+     */
+    public PlayerRecordWriter(OutputStream out) throws IOException {
+        this.out = out;
+        writeHeader();
+    }
+
+    /**
+     * Writes a record.
+     * @param record the record to write
+     * @throws IOException thrown if the record can't be written
+     * @throws IllegalArgumentException thrown if the UUID of the record is invalid
+     */
+    public void write(PlayerRecord record) throws IOException {
+        length = 0;
+
+        int flags = (record.isLegacy() ? LEGACY : 0) | (record.isDemo() ? DEMO : 0) | (record.isSlim() ? SLIM : 0)
+                | (record.getSkinHash() != null ? SKIN : 0) | (record.getCapeHash() != null ? CAPE : 0);
+
+        writeByte(flags);
+        writeUUID(record.getId());
+        writeString(record.getName());
+        writeVarLong(record.getTimestamp());
+
+        if (record.getSkinHash() != null)
+            writeHash(record.getSkinHash());
+
+        if (record.getCapeHash() != null)
+            writeHash(record.getCapeHash());
+
+        NameHistory history = record.getHistory();
+        writeVarLong(history.size());
+
+        long previous = 0;
+
+        for (int i = 0; i < history.size(); i++) {
+            writeVarLong(history.getChangedToAt(i) - previous);
+            writeString(history.getName(i));
+            previous = history.getChangedToAt(i);
+        }
+
+        int recordLength = length;
+        writeVarLong(recordLength);
+
+        // the length was appended behind the record, write it first
+        out.write(buffer, recordLength, length - recordLength);
+        out.write(buffer, 0, recordLength);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(new byte[] {(byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC, VERSION});
+    }
+
+    private void writeUUID(String uuid) {
+        UUID id = UUIDs.parse(uuid);
+        if (id == null) throw new IllegalArgumentException("Invalid UUID: " + uuid);
+
+        writeLong(id.getMostSignificantBits());
+        writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes a lowercase hex hash as packed digits. Other strings are stored as UTF-8, the lowest bit of the length
+     * tells which.
+     */
+    private void writeHash(String hash) {
+        for (int i = 0; i < hash.length(); i++) {
+            if (digit(hash.charAt(i)) < 0) {
+                byte[] bytes = hash.getBytes(StandardCharsets.UTF_8);
+                writeVarLong((long) bytes.length << 1 | 1);
+                writeBytes(bytes);
+                return;
+            }
+        }
+
+        writeVarLong((long) hash.length() << 1);
+
+        for (int i = 0; i < hash.length(); i += 2) {
+            int high = digit(hash.charAt(i));
+            int low = i + 1 < hash.length() ? digit(hash.charAt(i + 1)) : 0;
+            writeByte(high << 4 | low);
+        }
+    }
+
+    /**
+     * Returns the value of a lowercase ASCII hex digit, the only digits the reader restores.
+     * @return the value or -1 if the character is not such a digit
+     */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private void writeLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8)
+            writeByte((int) (value >>> shift));
+    }
+
+    /**
+     * Writes an unsigned variable-length integer, 7 bits per byte.
+     */
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        writeByte((int) value);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(int b) {
+        ensure(1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void ensure(int bytes) {
+        if (length + bytes > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+    }
+}
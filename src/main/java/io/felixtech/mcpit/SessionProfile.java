@@ -0,0 +1,340 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.JsonFieldReader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Typed view of a users session profile (skin, cape) as returned by the session server.
+ * <br>The properties are kept in their encoded form. They are only Base64-decoded and parsed when one of the typed
+ * accessors needs them; the decoded form is then kept for further calls. The raw response is kept as well, so
+ * {@link #toJSON()} can return the fields which have no typed accessor.
+ */
+public final class SessionProfile {
+    private static final JsonFieldReader.Fields PROFILE_FIELDS = new JsonFieldReader.Fields("id", "name", "properties");
+    private static final JsonFieldReader.Fields PROPERTY_FIELDS = new JsonFieldReader.Fields("name", "value", "signature");
+    private static final JsonFieldReader.Fields TEXTURES_FIELDS = new JsonFieldReader.Fields("timestamp", "textures");
+    private static final JsonFieldReader.Fields TEXTURE_TYPES = new JsonFieldReader.Fields("SKIN", "CAPE");
+    private static final JsonFieldReader.Fields TEXTURE_FIELDS = new JsonFieldReader.Fields("url", "metadata");
+    private static final JsonFieldReader.Fields METADATA_FIELDS = new JsonFieldReader.Fields("model");
+
+    private final String id;
+    private final String name;
+    private final List<Property> properties;
+    private final byte[] response;
+    private final boolean stale;
+    private volatile Textures textures = null;
+
+    SessionProfile(String id, String name, List<Property> properties, byte[] response, boolean stale) {
+        this.id = id;
+        this.name = name;
+        this.properties = Collections.unmodifiableList(properties);
+        this.response = response;
+        this.stale = stale;
+    }
+
+    /**
+     * Reads a session profile from the raw response of the session server.
+     * @param json the UTF-8 encoded response
+     * @return the session profile
+     * @throws JSONException thrown if the response is malformed
+     */
+    public static SessionProfile parse(byte[] json) {
+        return parse(json, false);
+    }
+
+    /**
+     * Reads a session profile from the raw response of the session server.
+     * @param stale true if the response was served from an expired cache entry
+     */
+    static SessionProfile parse(byte[] json, boolean stale) {
+        JsonFieldReader reader = new JsonFieldReader(json);
+        String id = null, name = null;
+        List<Property> properties = new ArrayList<>(1);
+
+        reader.beginObject();
+
+        for (int field; (field = reader.nextField(PROFILE_FIELDS)) != JsonFieldReader.END; ) {
+            switch (field) {
+                case 0: id = reader.nextString(); break;
+                case 1: name = reader.nextString(); break;
+                case 2:
+                    reader.beginArray();
+
+                    while (reader.hasNextElement()) {
+                        String propertyName = null, value = null, signature = null;
+
+                        reader.beginObject();
+
+                        for (int f; (f = reader.nextField(PROPERTY_FIELDS)) != JsonFieldReader.END; ) {
+                            switch (f) {
+                                case 0: propertyName = reader.nextString(); break;
+                                case 1: value = reader.nextString(); break;
+                                case 2: signature = reader.nextString(); break;
+                                default: reader.skipValue();
+                            }
+                        }
+
+                        if (propertyName == null || value == null) throw new JSONException("Property without name or value");
+                        properties.add(new Property(propertyName, value, signature));
+                    }
+                    break;
+                default: reader.skipValue();
+            }
+        }
+
+        if (id == null || name == null) throw new JSONException("Session profile without id or name");
+        return new SessionProfile(id, name, properties, json, stale);
+    }
+
+    /**
+     * Returns the UUID of the user.
+     * @return the UUID of the user (without dashes)
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the current player name of the user.
+     * @return the current player name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Checks if the profile is the last known one, served from an expired cache entry because the session server is
+     * unavailable.
+     * @return true if the profile may be outdated
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Returns all properties in their encoded form.
+     * @return the properties
+     */
+    public List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns a property.
+     * @param name the name of the property, e.g. {@code textures}
+     * @return the property or {@code null} if the profile has no such property
+     */
+    public Property getProperty(String name) {
+        for (Property property : properties)
+            if (property.getName().equals(name))
+                return property;
+
+        return null;
+    }
+
+    /**
+     * Returns the time at which the textures information was issued.
+     * @return the timestamp in milliseconds since the epoch or 0 if the profile has no textures
+     */
+    public long getTimestamp() {
+        return textures().timestamp;
+    }
+
+    /**
+     * Returns the URL of the skin texture.
+     * @return the URL or {@code null} if the user uses a default skin
+     */
+    public String getSkinUrl() {
+        return textures().skinUrl;
+    }
+
+    /**
+     * Returns the URL of the cape texture.
+     * @return the URL or {@code null} if the user has no cape
+     */
+    public String getCapeUrl() {
+        return textures().capeUrl;
+    }
+
+    /**
+     * Returns the model of the skin.
+     * @return {@code slim} for the slim (Alex) model, {@code classic} for the classic (Steve) model
+     */
+    public String getModel() {
+        return textures().slim ? "slim" : "classic";
+    }
+
+    /**
+     * Checks if the skin uses the slim (Alex) model.
+     * @return true for the slim model
+     */
+    public boolean isSlim() {
+        return textures().slim;
+    }
+
+    /**
+     * Converts the profile into the JSON format with all property values decoded.
+     * <br>All other fields of the response, e.g. {@code profileActions}, are returned as they were received.
+     * @return the profile in the JSON format
+     * @see MinecraftPlayerInfo#getInfoJSON(String)
+     */
+    public JSONObject toJSON() {
+        JSONArray json_properties = new JSONArray();
+
+        for (Property property : properties) {
+            JSONObject json_property = new JSONObject();
+            json_property.put("name", property.getName());
+            json_property.put("value", property.getDecodedJSON());
+
+            if (property.getSignature() != null)
+                json_property.put("signature", property.getSignature());
+
+            json_properties.put(json_property);
+        }
+
+        JSONObject json = new JSONObject(new String(response, StandardCharsets.UTF_8));
+        return json.put("id", id).put("name", name).put("properties", json_properties);
+    }
+
+    private Textures textures() {
+        Textures textures = this.textures;
+
+        if (textures == null) {
+            Property property = getProperty("textures");
+            textures = property == null ? new Textures() : Textures.parse(property.getDecoded());
+            this.textures = textures;
+        }
+
+        return textures;
+    }
+
+    /**
+     * A signed property of a session profile.
+     */
+    public static final class Property {
+        private final String name;
+        private final String value;
+        private final String signature;
+        private volatile byte[] decoded = null;
+
+        Property(String name, String value, String signature) {
+            this.name = name;
+            this.value = value;
+            this.signature = signature;
+        }
+
+        /**
+         * Returns the name of the property.
+         * @return the name, e.g. {@code textures}
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the Base64-encoded value of the property.
+         * @return the encoded value
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the signature of the property.
+         * @return the signature or {@code null} if the property is not signed
+         */
+        public String getSignature() {
+            return signature;
+        }
+
+        /**
+         * Returns the decoded value of the property. It is decoded on the first call.
+         * @return the UTF-8 encoded JSON value
+         */
+        public byte[] getDecoded() {
+            byte[] decoded = this.decoded;
+
+            if (decoded == null) {
+                decoded = Base64.getDecoder().decode(value);
+                this.decoded = decoded;
+            }
+
+            return decoded;
+        }
+
+        /**
+         * Returns the decoded value of the property as JSON.
+         * @return the value in the JSON format
+         */
+        public JSONObject getDecodedJSON() {
+            return new JSONObject(new String(getDecoded(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class Textures {
+        private long timestamp = 0;
+        private String skinUrl = null;
+        private String capeUrl = null;
+        private boolean slim = false;
+
+        private static Textures parse(byte[] json) {
+            Textures textures = new Textures();
+            JsonFieldReader reader = new JsonFieldReader(json);
+
+            reader.beginObject();
+
+            for (int field; (field = reader.nextField(TEXTURES_FIELDS)) != JsonFieldReader.END; ) {
+                switch (field) {
+                    case 0: textures.timestamp = reader.nextLong(); break;
+                    case 1:
+                        reader.beginObject();
+
+                        for (int type; (type = reader.nextField(TEXTURE_TYPES)) != JsonFieldReader.END; ) {
+                            if (type == JsonFieldReader.UNKNOWN) {
+                                reader.skipValue();
+                                continue;
+                            }
+
+                            String url = null;
+                            reader.beginObject();
+
+                            for (int f; (f = reader.nextField(TEXTURE_FIELDS)) != JsonFieldReader.END; ) {
+                                if (f == 0) {
+                                    url = reader.nextString();
+                                } else if (f == 1 && type == 0) {
+                                    reader.beginObject();
+
+                                    for (int m; (m = reader.nextField(METADATA_FIELDS)) != JsonFieldReader.END; ) {
+                                        if (m == 0)
+                                            textures.slim = "slim".equals(reader.nextString());
+                                        else
+                                            reader.skipValue();
+                                    }
+                                } else {
+                                    reader.skipValue();
+                                }
+                            }
+
+                            if (type == 0)
+                                textures.skinUrl = url;
+                            else
+                                textures.capeUrl = url;
+                        }
+                        break;
+                    default: reader.skipValue();
+                }
+            }
+
+            return textures;
+        }
+    }
+}
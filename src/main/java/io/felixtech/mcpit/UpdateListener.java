@@ -1,108 +1,275 @@
 package io.felixtech.mcpit;
 
+import io.felixtech.mcpit.util.CircuitOpenException;
+import io.felixtech.mcpit.util.HttpStatusException;
 import io.felixtech.mcpit.util.NoSuchPlayerException;
+import io.felixtech.mcpit.util.SkinCache;
+import io.felixtech.mcpit.util.SkinRenderer;
+import io.felixtech.mcpit.util.URLReader;
+import io.felixtech.mcpit.util.UUIDs;
 
+import java.awt.Color;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.URL;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.imageio.ImageIO;
+import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 
-import org.json.JSONObject;
+import org.json.JSONException;
 
 final class UpdateListener extends KeyAdapter implements ActionListener {
+    private static final String[] STAGES = {"profile", "names", "session", "skin"};
+    private static final Color STALE = new Color(0xB0, 0x60, 0x00);
+
     private final PlayerInfoWindow piw;
+    private final LookupPipeline pipeline = new LookupPipeline();
+    private final KnownPlayers knownPlayers = new KnownPlayers();
+
+    // state of the shown lookup, only accessed on the event dispatch thread
+    private LookupPipeline.Lookup shown = null;
+    private final Set<String> stale = new HashSet<>();
+    private final Set<String> unavailable = new HashSet<>();
+    private final Map<JComponent, Color> marked = new IdentityHashMap<>();
 
     UpdateListener(PlayerInfoWindow piw) {
         this.piw = piw;
     }
 
+    KnownPlayers getKnownPlayers() {
+        return knownPlayers;
+    }
+
     @Override public void keyPressed(KeyEvent ev) {
-        if (ev.getKeyCode() == KeyEvent.VK_ENTER) {
+        if (ev.getKeyCode() == KeyEvent.VK_ENTER && !ev.isConsumed()) {
             clear();
-            exec();
+            exec(null);
         }
     }
 
     @Override public void actionPerformed(ActionEvent ev) {
         clear();
-        exec();
+        exec(null);
     }
 
-    private void exec() {
+    /**
+     * Looks up a player chosen from the suggestions, skipping the name resolution.
+     */
+    void choose(KnownPlayers.Player player) {
+        clear();
+        exec(player);
+    }
+
+    private void exec(KnownPlayers.Player known) {
         String input = piw.currentName.getText().trim();
-        String uuid;
-        JSONObject info_json;
+        LookupPipeline.Lookup lookup = pipeline.start();
+        AtomicBoolean reported = new AtomicBoolean(false);
+        shown = lookup;
 
-        try {
-            uuid = MinecraftPlayerInfo.getUUID(input);
-
-            piw.currentName.setText(MinecraftPlayerInfo.getCurrentName(input));
-
-            piw.uuid.setText(uuid);
-
-            if (MinecraftPlayerInfo.getLegacy(input))
-                piw.legacy.setText("Minecraft-Account");
-            else
-                piw.legacy.setText("Mojang-Account");
-
-            if (MinecraftPlayerInfo.getDemo(input))
-                piw.demo.setText("Demo Account");
-            else
-                piw.demo.setText("Paid Account");
-
-            Map<String, Long> allNamesMap = MinecraftPlayerInfo.getAllNames(uuid);
-            piw.allNamesModel.clear();
-
-            allNamesMap.keySet().stream().forEach((name) -> {
-                long timestamp = allNamesMap.get(name);
-
-                if (timestamp == 0) {
-                    piw.allNamesModel.addElement(name);
-                } else {
-                    Date d = new Date(timestamp);
-                    piw.allNamesModel.addElement(name + " (" + d + ")");
-                }
-            });
-
-            info_json = MinecraftPlayerInfo.getInfoJSON(uuid);
-            piw.details.setText(info_json.toString());
-            piw.requestTime.setText(getLastSkinChangeTime(info_json).toString());
-
-            try {
-                URL url = new URL("https://crafatar.com/renders/body/" + piw.uuid.getText());
-                Image skin = ImageIO.read(url);
-                piw.skin.setImage(skin);
-            } catch (IOException ex) {
-                piw.skin.setImage((Image) null);
-                System.err.println(ex);
+        piw.completion.hide();
+
+        CompletableFuture<PlayerProfile> profile = null;
+        CompletableFuture<String> id;
+
+        // a pasted UUID needs no name resolution, the name is taken from the session profile
+        UUID uuid = known == null ? UUIDs.parse(input) : null;
+
+        if (known == null && uuid == null)
+            profile = lookup.submit("profile", 3, () -> MinecraftPlayerInfo.getProfile(input));
+        else if (known != null && known.getProfile() != null)
+            profile = CompletableFuture.completedFuture(known.getProfile());
+
+        if (profile != null) {
+            lookup.deliver(profile, this::showProfile, ex -> fail(ex, reported));
+            id = profile.thenApply(PlayerProfile::getId);
+        } else {
+            id = CompletableFuture.completedFuture(uuid != null ? UUIDs.format(uuid) : known.getUUID());
+        }
+
+        // once the player is identified, a failing section is marked as unavailable instead of failing the lookup
+        CompletableFuture<NameHistory> allNames = lookup.then("names", 2, id, MinecraftPlayerInfo::getNameHistory);
+        lookup.deliver(allNames, this::showAllNames, ex -> unavailable("names", ex, id, reported));
+
+        CompletableFuture<SessionProfile> info = lookup.then("session", 2, id, MinecraftPlayerInfo::getSessionProfile);
+        if (profile == null)
+            lookup.deliver(info, this::showSession, ex -> fail(ex, reported));
+        else
+            lookup.deliver(info, this::showInfo, ex -> unavailable("session", ex, id, reported));
+
+        CompletableFuture<Image> skin = lookup.then("skin", 1, info, UpdateListener::renderSkin);
+        lookup.deliver(skin, piw.skin::setImage, ex -> {
+            piw.skin.setImage((Image) null);
+            unavailable("skin", ex, info, reported);
+        });
+
+        for (CompletableFuture<?> stage : Arrays.asList(id, allNames, info, skin))
+            lookup.deliver(stage.handle((value, ex) -> null), done -> showTimings(lookup), ex -> {});
+    }
+
+    private void showTimings(LookupPipeline.Lookup lookup) {
+        StringBuilder text = new StringBuilder();
+
+        for (String stage : STAGES) {
+            Long millis = lookup.getTimings().get(stage);
+
+            if (millis != null) {
+                if (text.length() > 0) text.append("  |  ");
+                text.append(stage).append(' ').append(millis).append(" ms");
+
+                if (unavailable.contains(stage))
+                    text.append(" (unavailable)");
+                else if (stale.contains(stage))
+                    text.append(" (stale)");
+            }
+        }
+
+        piw.status.setText(text.toString());
+    }
+
+    /**
+     * Marks the components of a section showing the last known data of a player, served because the API is
+     * unavailable.
+     */
+    private void markStale(String stage, JComponent... components) {
+        stale.add(stage);
+
+        for (JComponent component : components) {
+            marked.putIfAbsent(component, component.getForeground());
+            component.setForeground(STALE);
+            component.setToolTipText("Last known data, the server is currently unavailable");
+        }
+
+        showTimings(shown);
+    }
+
+    /**
+     * Reports the failure of a section of an identified player, keeping the sections which succeeded.
+     * @param dependency the step the section depends on; if it failed, the failure has been reported already
+     */
+    private void unavailable(String stage, Throwable ex, CompletableFuture<?> dependency, AtomicBoolean reported) {
+        if (reported.get() || dependency.isCompletedExceptionally())
+            return;
+
+        unavailable.add(stage);
+
+        if (stage.equals("names"))
+            piw.allNamesModel.addElement("- unavailable -");
+        else if (stage.equals("session"))
+            piw.details.setText("Unavailable: " + ex.getLocalizedMessage());
+
+        if (!(ex instanceof NoSuchPlayerException))
+            System.err.println(ex);
+
+        showTimings(shown);
+    }
+
+    private void showProfile(PlayerProfile profile) {
+        knownPlayers.remember(profile);
+
+        if (profile.isStale())
+            markStale("profile", piw.uuid, piw.legacy, piw.demo);
+
+        piw.currentName.setText(profile.getName());
+
+        piw.uuid.setText(profile.getId());
+
+        if (profile.isLegacy())
+            piw.legacy.setText("Minecraft-Account");
+        else
+            piw.legacy.setText("Mojang-Account");
+
+        if (profile.isDemo())
+            piw.demo.setText("Demo Account");
+        else
+            piw.demo.setText("Paid Account");
+    }
+
+    private void showAllNames(NameHistory history) {
+        piw.allNamesModel.clear();
+
+        if (history.isStale())
+            markStale("names", piw.allNames);
+
+        for (int i = 0; i < history.size(); i++) {
+            String name = history.getName(i);
+            long timestamp = history.getChangedToAt(i);
+
+            if (timestamp == 0) {
+                piw.allNamesModel.addElement(name);
+            } else {
+                Date d = new Date(timestamp);
+                piw.allNamesModel.addElement(name + " (" + d + ")");
             }
-        } catch (NoSuchPlayerException ex) {
-            clear();
-            JOptionPane.showMessageDialog(piw, "A player with this name doesn't exist!", "Player doesn't exist", JOptionPane.WARNING_MESSAGE);
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(piw, "Can't retrive user information.\n" + ex.getLocalizedMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
-    /* TODO
-    private static URL getSkinUrl(JSONObject info) throws IOException {
-        if (info == null) throw new IOException();
+
+    /**
+     * Shows the session profile of a player looked up without name resolution, which also provides the name.
+     */
+    private void showSession(SessionProfile info) {
+        piw.currentName.setText(info.getName());
+        piw.uuid.setText(info.getId());
+        showInfo(info);
+    }
+
+    private void showInfo(SessionProfile info) {
+        if (info.isStale())
+            markStale("session", piw.details, piw.requestTime);
+
         try {
-            return new URL(info.getJSONArray("properties").getJSONObject(0).getJSONObject("value").getJSONObject("textures").getJSONObject("SKIN").getString("url"));
-        } catch(JSONException e) {
-            return null;
+            piw.details.setText(info.toJSON().toString());
+            piw.requestTime.setText(new Date(info.getTimestamp()).toString());
+        } catch (JSONException | IllegalArgumentException ex) {
+            System.err.println(ex);
         }
     }
-    */
-    private static Date getLastSkinChangeTime(JSONObject info) throws IOException {
-        if (info == null) throw new IOException();
-        return new Date(info.getJSONArray("properties").getJSONObject(0).getJSONObject("value").getLong("timestamp"));
+
+    /**
+     * Reports the failure of a lookup step. Only the first failure of a lookup is shown to the user.
+     */
+    private void fail(Throwable ex, AtomicBoolean reported) {
+        if (reported.getAndSet(true))
+            return;
+
+        if (ex instanceof NoSuchPlayerException) {
+            clear();
+            JOptionPane.showMessageDialog(piw, "A player with this name doesn't exist!", "Player doesn't exist", JOptionPane.WARNING_MESSAGE);
+        } else if (ex instanceof HttpStatusException && ((HttpStatusException) ex).getStatus() == 429) {
+            JOptionPane.showMessageDialog(piw, "Too many requests, the server is still throttling after several retries.\nPlease try again later.", "Rate limited", JOptionPane.WARNING_MESSAGE);
+        } else if (ex instanceof CircuitOpenException) {
+            JOptionPane.showMessageDialog(piw, "The servers are currently unavailable and the player is not cached.\nPlease try again later.", "Unavailable", JOptionPane.WARNING_MESSAGE);
+        } else if (ex instanceof SocketTimeoutException) {
+            JOptionPane.showMessageDialog(piw, "The servers didn't answer in time.\nPlease try again later.", "Timeout", JOptionPane.WARNING_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(piw, "Can't retrive user information.\n" + ex.getLocalizedMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Renders the skin texture referenced by the session profile locally.
+     * <br>Players without a custom skin have no texture, their default skin is rendered remotely.
+     */
+    private static Image renderSkin(SessionProfile info) throws IOException {
+        if (info.getSkinUrl() == null)
+            return ImageIO.read(new ByteArrayInputStream(URLReader.readBytes(Endpoint.RENDER.url(info.getId()))));
+
+        String hash = SkinCache.hashOf(info.getSkinUrl());
+        return MinecraftPlayerInfo.getSkinCache().getRender(hash,
+                () -> URLReader.readBytes(Endpoint.TEXTURES.url(hash)), info.isSlim(), SkinRenderer.DEFAULT_SCALE);
     }
 
     private void clear() {
@@ -113,5 +280,15 @@ final class UpdateListener extends KeyAdapter implements ActionListener {
         piw.details.setText(null);
         piw.requestTime.setText("- Dump Time -");
         piw.skin.setImage((Image) null);
+        piw.status.setText(" ");
+
+        for (Map.Entry<JComponent, Color> component : marked.entrySet()) {
+            component.getKey().setForeground(component.getValue());
+            component.getKey().setToolTipText(null);
+        }
+
+        marked.clear();
+        stale.clear();
+        unavailable.clear();
     }
 }
@@ -0,0 +1,174 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.UUIDs;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless watch mode: watches a list of players and streams one JSON line per detected change until it is stopped.
+ * <br>Players can be given by UUID or by name; names are resolved once at start with the bulk endpoint.
+ */
+final class WatchMode {
+    private File input = null;
+    private File output = null;
+    private File state = new File(System.getProperty("user.home"), ".mcpit" + File.separator + "watch.state");
+    private double rate = 2;
+    private int threads = 4;
+    private long minInterval = -1;
+
+    private WatchMode() {}
+
+    /**
+     * Runs the watch mode.
+     * @param args the command line arguments following {@code --watch}
+     * @return the exit code
+     */
+    static int run(String[] args) {
+        WatchMode watch = new WatchMode();
+
+        try {
+            watch.parse(args);
+        } catch(IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: --watch [--input <file>] [--output <file>] [--state <file>|-] [--rate <polls/s>] [--threads <n>] [--min-interval <s>]");
+            return 2;
+        }
+
+        try {
+            return watch.execute();
+        } catch(IOException e) {
+            System.err.println("Watch failed: " + e);
+            return 1;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+
+            String value = args[++i];
+
+            try {
+                switch (option) {
+                    case "--input":
+                        input = "-".equals(value) ? null : new File(value);
+                        break;
+                    case "--output":
+                        output = "-".equals(value) ? null : new File(value);
+                        break;
+                    case "--state":
+                        state = "-".equals(value) ? null : new File(value);
+                        break;
+                    case "--rate":
+                        rate = Double.parseDouble(value);
+                        if (rate <= 0) throw new IllegalArgumentException("Rate must be greater than zero!");
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be greater than zero!");
+                        break;
+                    case "--min-interval":
+                        minInterval = TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+                        if (minInterval <= 0) throw new IllegalArgumentException("Minimum interval must be greater than zero!");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            } catch(NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+            }
+        }
+    }
+
+    private int execute() throws IOException, InterruptedException {
+        List<String> uuids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                input == null ? System.in : new FileInputStream(input), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                String player = line.trim();
+
+                if (player.isEmpty())
+                    continue;
+
+                if (UUIDs.isUUID(player))
+                    uuids.add(UUIDs.normalize(player));
+                else
+                    names.add(player);
+            }
+        }
+
+        if (!names.isEmpty()) {
+            NameResolution resolution = MinecraftPlayerInfo.resolveUUIDs(names);
+
+            for (PlayerProfile profile : resolution.getProfiles().values())
+                uuids.add(profile.getId());
+
+            for (String missing : resolution.getMissing())
+                System.err.println("Unknown player: " + missing);
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                output == null ? System.out : new FileOutputStream(output, true), StandardCharsets.UTF_8));
+        ChangeTracker tracker = new ChangeTracker(state, rate, threads);
+        CountDownLatch stopped = new CountDownLatch(1);
+
+        if (minInterval > 0)
+            tracker.setIntervals(minInterval, Math.max(minInterval, TimeUnit.HOURS.toMillis(24)));
+
+        tracker.addListener(change -> {
+            synchronized (out) {
+                try {
+                    out.write(change.toJSON().toString());
+                    out.write('\n');
+                    out.flush();
+                } catch(IOException e) {
+                    System.err.println(e);
+                }
+            }
+        });
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                tracker.close();
+
+                synchronized (out) {
+                    out.close();
+                }
+            } catch(IOException e) {
+                System.err.println(e);
+            }
+
+            stopped.countDown();
+        }));
+
+        for (String uuid : uuids)
+            tracker.watch(uuid);
+
+        System.err.println("Watching " + tracker.size() + " players");
+        stopped.await();
+        return 0;
+    }
+}
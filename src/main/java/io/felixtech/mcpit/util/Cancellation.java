@@ -0,0 +1,52 @@
+package io.felixtech.mcpit.util;
+
+/**
+ * Aborts a request while it is being sent, e.g. the slower attempt of a hedged request.
+ * <br>The transport sending the request registers how to abort it. Cancelling runs that action at once, or when it is
+ * registered if the request was cancelled before.
+ */
+public final class Cancellation {
+    private Runnable abort;
+    private boolean cancelled = false;
+
+    /**
+     * Registers how to abort the request, replacing a previously registered action.
+     * @param abort the action, e.g. closing the connection
+     */
+    public void onCancel(Runnable abort) {
+        synchronized (this) {
+            if (!cancelled) {
+                this.abort = abort;
+                return;
+            }
+        }
+
+        abort.run();
+    }
+
+    /**
+     * Aborts the request. Does nothing if it was cancelled before.
+     */
+    public void cancel() {
+        Runnable action;
+
+        synchronized (this) {
+            if (cancelled)
+                return;
+
+            cancelled = true;
+            action = abort;
+        }
+
+        if (action != null)
+            action.run();
+    }
+
+    /**
+     * Checks if the request was cancelled.
+     * @return true if {@link #cancel()} was called
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,203 @@
+package io.felixtech.mcpit.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending requests to an endpoint which fails most of them.
+ * <br>The outcomes of the latest requests are kept in a sliding window. Once the window holds enough requests and the
+ * share of failures reaches the threshold, the breaker opens: requests are rejected at once instead of each waiting
+ * for the timeout of a dead host. After a cool-down the next request is let through as a probe (half-open). If the
+ * probe succeeds the breaker closes, otherwise it opens again for twice the cool-down, up to a maximum.
+ * <br>The breaker only counts outcomes; {@link CircuitBreakerTransport} applies it to requests.
+ */
+public final class CircuitBreaker {
+    private final boolean[] window;
+    private final int minRequests;
+    private final double failureThreshold;
+    private final long baseCoolDown;
+    private final long maxCoolDown;
+
+    private volatile State state = State.CLOSED;
+    private int next = 0, recorded = 0, failures = 0;
+    private long coolDown;
+    private long openUntil;
+    private long timesOpened = 0;
+    private long rejected = 0;
+
+    /**
+     * Creates a new {@code CircuitBreaker} which opens once half of at least 10 of the last 20 requests failed and
+     * probes after 10 seconds, backing off up to 2 minutes.
+     */
+    public CircuitBreaker() {
+        this(20, 10, 0.5, TimeUnit.SECONDS.toMillis(10), TimeUnit.MINUTES.toMillis(2));
+    }
+
+    /**
+     * Creates a new {@code CircuitBreaker}.
+     * @param windowSize the number of latest requests whose outcomes are kept
+     * @param minRequests the number of outcomes required before the breaker may open
+     * @param failureThreshold the share of failures which opens the breaker, e.g. 0.5
+     * @param coolDown the time the breaker stays open before the first probe in milliseconds
+     * @param maxCoolDown the maximum time the breaker stays open after failed probes in milliseconds
+     * @throws IllegalArgumentException thrown if a value is out of range
+     */
+    public CircuitBreaker(int windowSize, int minRequests, double failureThreshold, long coolDown, long maxCoolDown) {
+        if (windowSize <= 0) throw new IllegalArgumentException("Window size must be greater than zero!");
+        if (minRequests <= 0 || minRequests > windowSize) throw new IllegalArgumentException("Minimum number of requests must be between 1 and the window size!");
+        if (failureThreshold <= 0 || failureThreshold > 1) throw new IllegalArgumentException("Failure threshold must be between 0 and 1!");
+        if (coolDown <= 0 || maxCoolDown < coolDown) throw new IllegalArgumentException("Cool-down must be greater than zero and not greater than its maximum!");
+
+        this.window = new boolean[windowSize];
+        this.minRequests = minRequests;
+        this.failureThreshold = failureThreshold;
+        this.baseCoolDown = coolDown;
+        this.maxCoolDown = maxCoolDown;
+        this.coolDown = coolDown;
+    }
+
+    /**
+     * Asks for permission to send a request.
+     * <br>Every granted request must be followed by {@link #onSuccess()}, {@link #onFailure()} or {@link #release()}.
+     * @return true if the request may be sent, false if it must be rejected
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED)
+            return true;
+
+        synchronized (this) {
+            if (state == State.CLOSED)
+                return true;
+
+            if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+                state = State.HALF_OPEN;
+                return true;
+            }
+
+            rejected++;
+            return false;
+        }
+    }
+
+    /**
+     * Records a request which was answered by the endpoint.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            coolDown = baseCoolDown;
+            reset();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a request which failed because of the endpoint, e.g. a timeout or a 5xx status.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            coolDown = Math.min(coolDown * 2, maxCoolDown);
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+
+            if (recorded >= minRequests && failures >= failureThreshold * recorded)
+                open();
+        }
+    }
+
+    /**
+     * Records a granted request which ended without telling anything about the endpoint, e.g. because it was
+     * interrupted before it was sent. A probe ending this way is retried by the next request.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN)
+            state = State.OPEN;
+    }
+
+    /**
+     * Returns the state of the breaker.
+     * @return the current state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Checks if requests are sent normally.
+     * <br>Callers having a fallback should use it while the breaker is not closed, instead of waiting for a probe.
+     * @return true if the breaker is closed
+     */
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Returns how long the breaker stays open before the next probe, which doubles after every failed probe.
+     * @return the current cool-down in milliseconds
+     */
+    public synchronized long getCoolDown() {
+        return coolDown;
+    }
+
+    /**
+     * Returns the share of failures in the sliding window.
+     * @return the failure rate between 0 and 1
+     */
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    /**
+     * Returns how often the breaker opened.
+     * @return the number of times the breaker opened
+     */
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    /**
+     * Returns how many requests were rejected.
+     * @return the number of rejected requests
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coolDown);
+        timesOpened++;
+        reset();
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+
+        window[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /** Requests are sent and their outcomes recorded. */
+        CLOSED,
+        /** Requests are rejected until the cool-down has passed. */
+        OPEN,
+        /** A single probe is being sent, all other requests are rejected. */
+        HALF_OPEN
+    }
+}
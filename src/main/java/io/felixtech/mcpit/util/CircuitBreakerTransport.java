@@ -0,0 +1,66 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.function.Function;
+
+/**
+ * A {@link HttpTransport} which rejects requests to endpoints whose {@link CircuitBreaker} is open.
+ * <br>Timeouts, connection failures and 5xx responses count as failures of the endpoint. Requests which were never
+ * sent, because they were interrupted or their deadline passed while waiting for a permit of a
+ * {@link ThrottledTransport}, don't count. Rejected requests fail at once with a {@link CircuitOpenException}.
+ * <br>The transport should be the outermost one, so rejected requests don't wait for permits and an attempt retried
+ * or hedged below it counts as a single outcome.
+ */
+public final class CircuitBreakerTransport implements HttpTransport {
+    private final HttpTransport delegate;
+    private final Function<HttpRequest, CircuitBreaker> breakers;
+
+    /**
+     * Creates a new {@code CircuitBreakerTransport}.
+     * @param delegate the transport which sends the requests
+     * @param breakers returns the breaker of the endpoint of a request or {@code null} if requests to the endpoint
+     *                 are always sent
+     */
+    public CircuitBreakerTransport(HttpTransport delegate, Function<HttpRequest, CircuitBreaker> breakers) {
+        this.delegate = delegate;
+        this.breakers = breakers;
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        CircuitBreaker breaker = breakers.apply(request);
+
+        if (breaker == null)
+            return delegate.send(request);
+
+        if (!breaker.tryAcquire())
+            throw new CircuitOpenException(request);
+
+        HttpResponse response;
+
+        try {
+            response = delegate.send(request);
+        } catch(ThrottledTransport.PermitTimeoutException e) {
+            breaker.release();
+            throw e;
+        } catch(SocketTimeoutException e) {
+            breaker.onFailure();
+            throw e;
+        } catch(InterruptedIOException e) {
+            breaker.release();
+            throw e;
+        } catch(IOException | RuntimeException e) {
+            breaker.onFailure();
+            throw e;
+        }
+
+        if (response.getStatus() >= 500)
+            breaker.onFailure();
+        else
+            breaker.onSuccess();
+
+        return response;
+    }
+}
@@ -0,0 +1,18 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown if a request was not sent because the {@link CircuitBreaker} of its endpoint is open.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new {@code CircuitOpenException}.
+     * @param request the rejected request
+     */
+    public CircuitOpenException(HttpRequest request) {
+        super("Endpoint unavailable, request not sent: " + request);
+    }
+}
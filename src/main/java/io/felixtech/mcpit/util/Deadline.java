@@ -0,0 +1,165 @@
+package io.felixtech.mcpit.util;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which an operation must be finished.
+ * <br>A deadline can be bound to the current thread with {@link #call(Task)}, {@link #run(Action)} or {@link #enter()}. Every request sent through
+ * {@link URLReader} on that thread then gets a timeout no longer than the remaining time and fails once the deadline
+ * has passed, instead of waiting the full {@link HttpRequest#DEFAULT_TIMEOUT timeout} for every single request.
+ * <br>An operation consisting of several sequential stages can {@link #share(int) split} its deadline, so a slow early
+ * stage can't use up the time of all later stages while time left over by a fast stage is passed on.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Creates a deadline which expires after the given time.
+     * @param millis the time in milliseconds
+     * @return the deadline
+     * @throws IllegalArgumentException thrown if the time is not greater than zero
+     */
+    public static Deadline after(long millis) {
+        if (millis <= 0) throw new IllegalArgumentException("Timeout must be greater than zero!");
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Returns the deadline bound to the current thread.
+     * @return the deadline or {@code null} if the thread has no deadline
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the time left until this deadline expires.
+     * @return the remaining time in milliseconds or 0 if the deadline has expired
+     */
+    public long remaining() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * Checks if this deadline has expired.
+     * @return true if the deadline has passed
+     */
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Fails if this deadline has expired.
+     * @throws SocketTimeoutException thrown if the deadline has passed
+     */
+    public void check() throws SocketTimeoutException {
+        if (isExpired()) throw new SocketTimeoutException("Deadline exceeded");
+    }
+
+    /**
+     * Returns the deadline of the next stage of an operation.
+     * <br>The next stage gets an equal share of the remaining time, e.g. a third if three stages including the next
+     * one are left.
+     * @param stages the number of sequential stages left including the next one
+     * @return the deadline of the next stage
+     * @throws IllegalArgumentException thrown if the number of stages is not greater than zero
+     */
+    public Deadline share(int stages) {
+        if (stages <= 0) throw new IllegalArgumentException("Number of stages must be greater than zero!");
+
+        long now = System.nanoTime();
+        return new Deadline(now + Math.max(0, expiresAt - now) / stages);
+    }
+
+    /**
+     * Calls a task with this deadline bound to the current thread.
+     * <br>If the thread already has an earlier deadline, the earlier one stays in effect.
+     * @param task the task to call
+     * @param <T> the result type of the task
+     * @param <E> the exception type of the task
+     * @return the result of the task
+     * @throws E thrown if the task fails
+     */
+    public <T, E extends Exception> T call(Task<T, E> task) throws E {
+        Scope scope = enter();
+
+        try {
+            return task.call();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Runs an action with this deadline bound to the current thread.
+     * <br>If the thread already has an earlier deadline, the earlier one stays in effect.
+     * @param action the action to run
+     * @param <E> the exception type of the action
+     * @throws E thrown if the action fails
+     */
+    public <E extends Exception> void run(Action<E> action) throws E {
+        Scope scope = enter();
+
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Binds this deadline to the current thread until the returned scope is closed.
+     * <br>If the thread already has an earlier deadline, the earlier one stays in effect.
+     * @return the scope, to be closed with try-with-resources
+     */
+    public Scope enter() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(previous != null && previous.expiresAt - expiresAt < 0 ? previous : this);
+        return new Scope(previous);
+    }
+
+    /**
+     * A task called within a deadline.
+     * @param <T> the result type
+     * @param <E> the exception type
+     */
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * An action run within a deadline.
+     * @param <E> the exception type
+     */
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Restores the deadline which was bound to the thread before {@link #enter()} when closed.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.felixtech.mcpit.util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the disk tier of a cache within a size limit.
+ * <br>The size of the directory is counted on first use and then tracked as files are written and deleted, so the
+ * directory is only listed again once the limit is exceeded. The least recently modified files are deleted first, until
+ * the directory is a tenth below the limit; caches touch the files they read, so this evicts the least recently used
+ * entries.
+ */
+final class DiskQuota {
+    private static final double SWEEP_TO = 0.9;
+
+    private final File directory;
+    private final long maxBytes;
+    private long bytes = -1;
+
+    /**
+     * Creates a new {@code DiskQuota}.
+     * @param directory the directory of the disk tier
+     * @param maxBytes the maximum size of all files in the directory
+     * @throws IllegalArgumentException thrown if the maximum size is not greater than zero
+     */
+    DiskQuota(File directory, long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Maximum disk size must be greater than zero!");
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Records that the size of the directory changed and sweeps it if it exceeds the limit.
+     * @param delta the number of bytes written, negative for deleted bytes
+     */
+    synchronized void changed(long delta) {
+        if (bytes < 0)
+            bytes = count();
+        else
+            bytes += delta;
+
+        if (bytes > maxBytes)
+            sweep();
+    }
+
+    /**
+     * Forgets the tracked size, e.g. after the directory was cleared.
+     */
+    synchronized void reset() {
+        bytes = -1;
+    }
+
+    /**
+     * Returns the tracked size of the directory.
+     * @return the size in bytes or -1 if it was not counted yet
+     */
+    synchronized long getSize() {
+        return bytes;
+    }
+
+    private long count() {
+        File[] files = directory.listFiles(File::isFile);
+        long total = 0;
+
+        if (files != null)
+            for (File file : files)
+                total += file.length();
+
+        return total;
+    }
+
+    private void sweep() {
+        File[] files = directory.listFiles(File::isFile);
+
+        if (files == null)
+            return;
+
+        // the times are read once, files touched during the sort must not break its order
+        Map<File, Long> modified = new HashMap<>();
+
+        for (File file : files)
+            modified.put(file, file.lastModified());
+
+        Arrays.sort(files, Comparator.comparing(modified::get));
+        bytes = count();
+
+        for (File file : files) {
+            if (bytes <= maxBytes * SWEEP_TO)
+                break;
+
+            long length = file.length();
+
+            if (file.delete())
+                bytes -= length;
+        }
+    }
+}
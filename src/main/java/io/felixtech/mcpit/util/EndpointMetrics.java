@@ -0,0 +1,115 @@
+package io.felixtech.mcpit.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+
+/**
+ * Latency, traffic and error statistics of a remote endpoint.
+ * <br>Every attempt sent over the network is recorded on its own, see {@link MeasuringTransport}. Latencies are
+ * reported in milliseconds.
+ */
+public final class EndpointMetrics implements EndpointMetricsMXBean {
+    private static final int NOT_FOUND = 404;
+    private static final int GONE = 410;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    /**
+     * Records an attempt which was answered by the endpoint.
+     * <br>Error statuses count as errors, except 404 (Not Found) and 410 (Gone), which answer for players that don't
+     * exist; 429 (Too Many Requests) additionally counts as throttled.
+     * @param nanos the latency of the attempt in nanoseconds
+     * @param response the response
+     */
+    public void record(long nanos, HttpResponse response) {
+        int status = response.getStatus();
+
+        requests.incrementAndGet();
+        latency.record(nanos);
+        bytesReceived.addAndGet(response.getBody().length);
+
+        if (status == TOO_MANY_REQUESTS)
+            throttled.incrementAndGet();
+
+        if (status >= 400 && status != NOT_FOUND && status != GONE)
+            errors.incrementAndGet();
+    }
+
+    /**
+     * Records an attempt which failed without a response, e.g. because of a timeout.
+     * @param nanos the time until the attempt failed in nanoseconds
+     */
+    public void recordFailure(long nanos) {
+        requests.incrementAndGet();
+        errors.incrementAndGet();
+        latency.record(nanos);
+    }
+
+    /**
+     * Returns the latency histogram.
+     * @return the histogram
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override public long getRequests() {
+        return requests.get();
+    }
+
+    @Override public long getErrors() {
+        return errors.get();
+    }
+
+    @Override public long getThrottled() {
+        return throttled.get();
+    }
+
+    @Override public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override public double getMeanLatency() {
+        return latency.getMean();
+    }
+
+    @Override public double getP50Latency() {
+        return latency.getPercentile(50);
+    }
+
+    @Override public double getP95Latency() {
+        return latency.getPercentile(95);
+    }
+
+    @Override public double getP99Latency() {
+        return latency.getPercentile(99);
+    }
+
+    @Override public double getMaxLatency() {
+        return latency.getMax();
+    }
+
+    /**
+     * Returns a snapshot of all statistics.
+     * @return the statistics in the JSON format
+     */
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("requests", getRequests())
+                .put("errors", getErrors())
+                .put("throttled", getThrottled())
+                .put("bytesReceived", getBytesReceived())
+                .put("latencyMs", new JSONObject()
+                        .put("mean", getMeanLatency())
+                        .put("p50", getP50Latency())
+                        .put("p95", getP95Latency())
+                        .put("p99", getP99Latency())
+                        .put("max", getMaxLatency()));
+    }
+}
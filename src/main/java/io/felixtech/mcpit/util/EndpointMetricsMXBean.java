@@ -0,0 +1,16 @@
+package io.felixtech.mcpit.util;
+
+/**
+ * JMX view of the {@link EndpointMetrics} of an endpoint.
+ */
+public interface EndpointMetricsMXBean {
+    long getRequests();
+    long getErrors();
+    long getThrottled();
+    long getBytesReceived();
+    double getMeanLatency();
+    double getP50Latency();
+    double getP95Latency();
+    double getP99Latency();
+    double getMaxLatency();
+}
@@ -0,0 +1,279 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A {@link HttpTransport} which hedges idempotent requests to cut the tail latency.
+ * <br>The first attempt runs on the calling thread. If it has not been answered within the usual latency of its
+ * endpoint (the 95th percentile by default), the same request is sent a second time on another thread and whichever
+ * attempt answers first is used; the other attempt is {@link Cancellation cancelled}. Since only the slowest few
+ * percent of the requests are hedged, the extra load is small; it is additionally capped to a fraction of all
+ * requests, so a slow server is not flooded with duplicates. Requests are not hedged until their endpoint has recorded
+ * enough latencies.
+ * <br>The transport belongs below a {@link ThrottledTransport}, so the delay only covers the time on the network and
+ * not the time spent waiting for a permit or a retry. A hedge bypasses that throttle: it is only sent if a
+ * {@link #setPermits(Predicate) permit} is available at once, otherwise the request waits for its first attempt.
+ */
+public final class HedgingTransport implements HttpTransport {
+    private static final int MIN_SAMPLES = 20;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final HttpTransport delegate;
+    private final Function<HttpRequest, LatencyHistogram> latencies;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService executor = TaskExecutors.newTaskExecutor("hedge");
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private volatile Predicate<HttpRequest> permits = request -> true;
+    private volatile double percentile = 95;
+    private volatile double maxHedgeRatio = 0.1;
+    private volatile long minDelay = 10;
+
+    /**
+     * Creates a new {@code HedgingTransport}.
+     * @param delegate the transport which sends the requests
+     * @param latencies returns the latencies observed for the endpoint of a request or {@code null} if requests to the
+     *                  endpoint should not be hedged
+     */
+    public HedgingTransport(HttpTransport delegate, Function<HttpRequest, LatencyHistogram> latencies) {
+        this.delegate = delegate;
+        this.latencies = latencies;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Configures which hedges may be sent, e.g. only those for which the rate limiter of the host has a permit
+     * available at once.
+     * <br>The predicate is asked right before a hedge is sent and takes the permit if it allows it.
+     * @param permits returns true if the second attempt of a request may be sent now
+     */
+    public void setPermits(Predicate<HttpRequest> permits) {
+        if (permits == null) throw new IllegalArgumentException("Permits must not be null!");
+        this.permits = permits;
+    }
+
+    /**
+     * Configures when requests are hedged.
+     * @param percentile the latency percentile of the endpoint after which a second attempt is sent, e.g. 95
+     * @param maxHedgeRatio the maximum number of hedges as a fraction of all hedgeable requests, e.g. 0.1
+     * @param minDelay the minimum time before a second attempt is sent in milliseconds
+     * @throws IllegalArgumentException thrown if the percentile is not between 0 and 100 or a value is negative
+     */
+    public void setHedging(double percentile, double maxHedgeRatio, long minDelay) {
+        if (percentile <= 0 || percentile > 100) throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+        if (maxHedgeRatio < 0 || minDelay < 0) throw new IllegalArgumentException("Hedging settings must not be negative!");
+
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.minDelay = minDelay;
+    }
+
+    /**
+     * Returns the number of requests which were eligible for hedging.
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of second attempts sent.
+     * @return the number of hedges
+     */
+    public long getHedged() {
+        return hedged.get();
+    }
+
+    /**
+     * Returns how often the second attempt answered first.
+     * @return the number of hedges which won
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        LatencyHistogram latency = request.isIdempotent() ? latencies.apply(request) : null;
+
+        if (latency == null || latency.getCount() < MIN_SAMPLES)
+            return delegate.send(request);
+
+        requests.incrementAndGet();
+        long delay = Math.max(minDelay, (long) latency.getPercentile(percentile));
+        Race race = new Race(request);
+        ScheduledFuture<?> hedge = timer.schedule(race::hedge, delay, TimeUnit.MILLISECONDS);
+        Attempt first;
+
+        try {
+            first = new Attempt(delegate.send(request.withCancellation(race.first)), null);
+        } catch(IOException | RuntimeException e) {
+            first = new Attempt(null, e);
+        } finally {
+            hedge.cancel(false);
+        }
+
+        return race.finish(first);
+    }
+
+    private static boolean usable(HttpResponse response) {
+        return response.getStatus() < 500 && response.getStatus() != TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * The attempts of a single request. The first usable response wins and cancels the other attempt.
+     */
+    private final class Race {
+        private final HttpRequest request;
+        private final Cancellation first = new Cancellation();
+        private final Cancellation second = new Cancellation();
+        private final BlockingQueue<Attempt> hedgeDone = new ArrayBlockingQueue<>(1);
+        private boolean finished = false;
+        private boolean hedging = false;
+        private Attempt winner;
+
+        private Race(HttpRequest request) {
+            this.request = request;
+        }
+
+        /**
+         * Sends the second attempt, unless the first one has finished or no hedge may be sent. Runs on the timer.
+         */
+        private void hedge() {
+            Deadline deadline = request.getDeadline();
+
+            synchronized (this) {
+                if (finished || hedged.get() >= requests.get() * maxHedgeRatio || (deadline != null && deadline.isExpired()))
+                    return;
+
+                if (!permits.test(request))
+                    return;
+
+                hedging = true;
+                hedged.incrementAndGet();
+            }
+
+            executor.execute(() -> {
+                Attempt attempt;
+
+                try {
+                    attempt = new Attempt(delegate.send(request.withCancellation(second)), null);
+                } catch(IOException | RuntimeException e) {
+                    attempt = new Attempt(null, e);
+                }
+
+                if (attempt.isUsable() && claim(attempt))
+                    first.cancel();
+
+                hedgeDone.add(attempt);
+            });
+        }
+
+        /**
+         * Picks the result once the first attempt has ended, waiting for a running hedge if the first attempt was
+         * not usable.
+         */
+        private HttpResponse finish(Attempt attempt) throws IOException {
+            boolean hedged;
+
+            synchronized (this) {
+                finished = true;
+                hedged = hedging;
+            }
+
+            if (!hedged)
+                return attempt.get();
+
+            if (attempt.isUsable() && claim(attempt)) {
+                second.cancel();
+                return attempt.response;
+            }
+
+            Attempt hedge = awaitHedge();
+
+            if (hedge != null && hedge == winner()) {
+                hedgeWins.incrementAndGet();
+                return hedge.response;
+            }
+
+            // a failed attempt only counts if the other one fails as well
+            if (attempt.response == null && hedge != null && hedge.response != null)
+                return hedge.response;
+
+            return attempt.get();
+        }
+
+        private Attempt awaitHedge() throws IOException {
+            Deadline deadline = request.getDeadline();
+
+            try {
+                if (deadline == null)
+                    return hedgeDone.take();
+
+                Attempt hedge = hedgeDone.poll(deadline.remaining(), TimeUnit.MILLISECONDS);
+
+                if (hedge == null)
+                    second.cancel();
+
+                return hedge;
+            } catch(InterruptedException e) {
+                second.cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a response");
+            }
+        }
+
+        private synchronized boolean claim(Attempt attempt) {
+            if (winner != null)
+                return false;
+
+            winner = attempt;
+            return true;
+        }
+
+        private synchronized Attempt winner() {
+            return winner;
+        }
+    }
+
+    /**
+     * The outcome of a single attempt: either a response or a failure.
+     */
+    private static final class Attempt {
+        private final HttpResponse response;
+        private final Exception failure;
+
+        private Attempt(HttpResponse response, Exception failure) {
+            this.response = response;
+            this.failure = failure;
+        }
+
+        private boolean isUsable() {
+            return response != null && usable(response);
+        }
+
+        private HttpResponse get() throws IOException {
+            if (response != null) return response;
+            if (failure instanceof IOException) throw (IOException) failure;
+            throw (RuntimeException) failure;
+        }
+    }
+}
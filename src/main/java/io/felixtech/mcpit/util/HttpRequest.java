@@ -0,0 +1,146 @@
+package io.felixtech.mcpit.util;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An immutable HTTP request sent by a {@link HttpTransport}.
+ */
+public final class HttpRequest {
+    /** The default connection and read timeout in milliseconds. */
+    public static final int DEFAULT_TIMEOUT = 5000;
+
+    private final String method;
+    private final URL url;
+    private final String contentType;
+    private final byte[] body;
+    private final int timeout;
+    private final Deadline deadline;
+    private final Cancellation cancellation;
+
+    private HttpRequest(String method, URL url, String contentType, byte[] body, int timeout, Deadline deadline, Cancellation cancellation) {
+        this.method = method;
+        this.url = url;
+        this.contentType = contentType;
+        this.body = body;
+        this.timeout = timeout;
+        this.deadline = deadline;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Creates a new GET request.
+     * @param url the URL to request
+     * @return the request
+     */
+    public static HttpRequest get(URL url) {
+        return new HttpRequest("GET", url, null, null, DEFAULT_TIMEOUT, null, null);
+    }
+
+    /**
+     * Creates a new POST request.
+     * @param url the URL to send the data to
+     * @param contentType the content type of the data
+     * @param data the data to send
+     * @return the request
+     */
+    public static HttpRequest post(URL url, String contentType, String data) {
+        return new HttpRequest("POST", url, contentType, data.getBytes(StandardCharsets.UTF_8), DEFAULT_TIMEOUT, null, null);
+    }
+
+    /**
+     * Returns a copy of this request with another timeout.
+     * @param timeout the connection and read timeout in milliseconds
+     * @return the new request
+     */
+    public HttpRequest withTimeout(int timeout) {
+        return new HttpRequest(method, url, contentType, body, timeout, deadline, cancellation);
+    }
+
+    /**
+     * Returns a copy of this request which must be answered before a deadline.
+     * @param deadline the deadline or {@code null} for no deadline
+     * @return the new request
+     */
+    public HttpRequest withDeadline(Deadline deadline) {
+        return new HttpRequest(method, url, contentType, body, timeout, deadline, cancellation);
+    }
+
+    /**
+     * Returns a copy of this request which can be aborted while it is being sent.
+     * @param cancellation the cancellation or {@code null} if the request can't be aborted
+     * @return the new request
+     */
+    public HttpRequest withCancellation(Cancellation cancellation) {
+        return new HttpRequest(method, url, contentType, body, timeout, deadline, cancellation);
+    }
+
+    /**
+     * Returns the request method.
+     * @return the request method, e.g. {@code GET}
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the requested URL.
+     * @return the URL
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the content type of the request body.
+     * @return the content type or {@code null} if the request has no body
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the request body.
+     * @return the body or {@code null} if the request has no body
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the connection and read timeout.
+     * <br>If the request has a deadline, the timeout is shortened to the time remaining until the deadline.
+     * @return the timeout in milliseconds
+     */
+    public int getTimeout() {
+        return deadline == null ? timeout : (int) Math.max(1, Math.min(timeout, deadline.remaining()));
+    }
+
+    /**
+     * Returns the deadline by which the request must be answered.
+     * @return the deadline or {@code null} if the request has no deadline
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Returns the cancellation which aborts the request.
+     * @return the cancellation or {@code null} if the request can't be aborted
+     */
+    public Cancellation getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Checks if sending this request twice has the same effect as sending it once.
+     * @return true for GET requests
+     */
+    public boolean isIdempotent() {
+        return "GET".equals(method);
+    }
+
+    @Override public String toString() {
+        return method + " " + url;
+    }
+}
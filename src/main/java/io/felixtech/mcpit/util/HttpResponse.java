@@ -0,0 +1,76 @@
+package io.felixtech.mcpit.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A completely read HTTP response.
+ */
+public final class HttpResponse {
+    private final int status;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    /**
+     * Creates a new {@code HttpResponse}.
+     * @param status the status code
+     * @param headers the response headers with lowercase names
+     * @param body the response body
+     */
+    public HttpResponse(int status, Map<String, String> headers, byte[] body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+    }
+
+    /**
+     * Returns the status code.
+     * @return the status code, e.g. 200
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks if the request succeeded.
+     * @return true if the status code is 2xx
+     */
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+
+    /**
+     * Returns a response header.
+     * @param name the case-insensitive name of the header
+     * @return the value of the header or {@code null} if the header is not present
+     */
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns all response headers.
+     * @return the headers with lowercase names
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the (decompressed) response body.
+     * @return the body
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the response body decoded as UTF-8.
+     * @return the body
+     */
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
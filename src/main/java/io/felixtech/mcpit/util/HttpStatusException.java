@@ -0,0 +1,50 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown if a server answered a request with an error status.
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final String retryAfter;
+
+    /**
+     * Creates a new {@code HttpStatusException}.
+     * @param request the failed request
+     * @param status the status code of the response
+     */
+    public HttpStatusException(HttpRequest request, int status) {
+        this(request, status, null);
+    }
+
+    /**
+     * Creates a new {@code HttpStatusException}.
+     * @param request the failed request
+     * @param status the status code of the response
+     * @param retryAfter the {@code Retry-After} header of the response or {@code null} if it has none
+     */
+    public HttpStatusException(HttpRequest request, int status, String retryAfter) {
+        super("Server returned HTTP response code: " + status + " for " + request);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the status code of the response.
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns when the server asked to retry the request.
+     * @return the {@code Retry-After} header (seconds or a HTTP date) or {@code null} if the response had none
+     */
+    public String getRetryAfter() {
+        return retryAfter;
+    }
+}
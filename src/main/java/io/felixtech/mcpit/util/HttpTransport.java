@@ -0,0 +1,18 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+
+/**
+ * Sends HTTP requests.
+ * <br>Implementations must read the complete response and release the underlying connection before returning.
+ */
+public interface HttpTransport {
+    /**
+     * Sends a request and reads the complete response.
+     * <br>Responses with an error status are returned as well and don't cause an exception.
+     * @param request the request to send
+     * @return the response
+     * @throws IOException if an I/O error occurs
+     */
+    HttpResponse send(HttpRequest request) throws IOException;
+}
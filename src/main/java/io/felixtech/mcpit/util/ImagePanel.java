@@ -32,7 +32,7 @@ public class ImagePanel extends JPanel {
      * @throws IllegalArgumentException thrown if the specified alpha value is lower than 0 or greater than 1
      */
     public ImagePanel(Image image) throws IllegalArgumentException {
-        this.image = image;
+        setImage(image);
     }
 
     /**
@@ -49,6 +49,10 @@ public class ImagePanel extends JPanel {
      */
     public void setImage(Image image) {
         this.image = image;
+
+        if (image != null)
+            setPreferredSize(getImageSize());
+
         repaint();
     }
 
@@ -84,7 +88,6 @@ public class ImagePanel extends JPanel {
         if (this.image == null)
             return;
 
-        setPreferredSize(getImageSize());
         g.drawImage(this.image, 0, 0, this);
     }
 }
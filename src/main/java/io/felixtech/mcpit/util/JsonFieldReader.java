@@ -0,0 +1,364 @@
+package io.felixtech.mcpit.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.json.JSONException;
+
+/**
+ * A pull parser which reads single fields directly from UTF-8 encoded JSON.
+ * <br>Unlike {@link org.json.JSONObject} it doesn't build a tree and doesn't decode the whole document into a
+ * {@link String}: field names are matched on the raw bytes and only the values which are actually requested are
+ * decoded. Everything else is skipped.
+ * <pre>
+ * JsonFieldReader json = new JsonFieldReader(body);
+ * json.beginObject();
+ * for (int field; (field = json.nextField(FIELDS)) != JsonFieldReader.END; ) {
+ *     switch (field) {
+ *         case 0: id = json.nextString(); break;
+ *         default: json.skipValue();
+ *     }
+ * }
+ * </pre>
+ */
+public final class JsonFieldReader {
+    /** Returned by {@link #nextField(Fields)} at the end of an object. */
+    public static final int END = -1;
+    /** Returned by {@link #nextField(Fields)} for a field which is not one of the requested fields. */
+    public static final int UNKNOWN = -2;
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+
+    private boolean[] first = new boolean[8];
+    private int depth = 0;
+
+    /**
+     * Creates a new {@code JsonFieldReader}.
+     * @param json the UTF-8 encoded JSON document
+     */
+    public JsonFieldReader(byte[] json) {
+        this(json, 0, json.length);
+    }
+
+    /**
+     * Creates a new {@code JsonFieldReader} reading a part of an array.
+     * @param json the array holding the UTF-8 encoded JSON document
+     * @param offset the index of the first byte of the document
+     * @param length the length of the document in bytes
+     */
+    public JsonFieldReader(byte[] json, int offset, int length) {
+        this.buf = json;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Returns the current position in the underlying array.
+     * @return the index of the next byte to read
+     */
+    public int getPosition() {
+        return pos;
+    }
+
+    /**
+     * Consumes the start of an object.
+     * @throws JSONException if the next value is not an object
+     */
+    public void beginObject() {
+        expect('{');
+        push();
+    }
+
+    /**
+     * Consumes the start of an array.
+     * @throws JSONException if the next value is not an array
+     */
+    public void beginArray() {
+        expect('[');
+        push();
+    }
+
+    /**
+     * Consumes the name of the next field of the current object.
+     * <br>The value of the field must be consumed afterwards, either by one of the {@code next} methods or by
+     * {@link #skipValue()}.
+     * @param fields the requested fields
+     * @return the index of the field in {@code fields}, {@link #UNKNOWN} for any other field or {@link #END} if the
+     * object has no more fields (the end of the object is consumed)
+     * @throws JSONException if the document is malformed
+     */
+    public int nextField(Fields fields) {
+        if (!nextMember('}'))
+            return END;
+
+        if (peek() != '"')
+            throw error("Expected field name");
+
+        int start = pos + 1;
+        int stop = scanString();
+        int index = UNKNOWN;
+
+        for (int i = 0; i < fields.names.length && index == UNKNOWN; i++)
+            if (fields.names[i].length == stop - start && regionMatches(fields.names[i], start))
+                index = i;
+
+        expect(':');
+        return index;
+    }
+
+    /**
+     * Checks if the current array has another element and prepares to read it.
+     * @return true if there is another element, false if the end of the array has been consumed
+     * @throws JSONException if the document is malformed
+     */
+    public boolean hasNextElement() {
+        return nextMember(']');
+    }
+
+    /**
+     * Reads a string value.
+     * @return the string or {@code null} if the value is {@code null}
+     * @throws JSONException if the value is not a string
+     */
+    public String nextString() {
+        if (nextNull())
+            return null;
+
+        if (peek() != '"')
+            throw error("Expected string");
+
+        int start = pos + 1;
+        int stop = scanString();
+
+        for (int i = start; i < stop; i++)
+            if (buf[i] == '\\')
+                return unescape(start, stop);
+
+        return new String(buf, start, stop - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a numeric value as {@code long}.
+     * @return the number
+     * @throws JSONException if the value is not a number
+     */
+    public long nextLong() {
+        skipWhitespace();
+
+        int start = pos;
+        boolean negative = pos < end && buf[pos] == '-';
+        if (negative) pos++;
+
+        long value = 0;
+        int digits = 0;
+
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+            value = value * 10 + (buf[pos++] - '0');
+            digits++;
+        }
+
+        if (pos < end && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+            while (pos < end && "+-.eE0123456789".indexOf(buf[pos]) >= 0) pos++;
+            return (long) Double.parseDouble(new String(buf, start, pos - start, StandardCharsets.US_ASCII));
+        }
+
+        if (digits == 0 || digits > 18)
+            throw error("Expected number");
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a boolean value.
+     * @return the boolean
+     * @throws JSONException if the value is not a boolean
+     */
+    public boolean nextBoolean() {
+        skipWhitespace();
+
+        if (consumeLiteral("true")) return true;
+        if (consumeLiteral("false")) return false;
+
+        throw error("Expected boolean");
+    }
+
+    /**
+     * Consumes a {@code null} value if there is one.
+     * @return true if the value was {@code null}
+     */
+    public boolean nextNull() {
+        skipWhitespace();
+        return consumeLiteral("null");
+    }
+
+    /**
+     * Skips the next value including all nested values.
+     * @throws JSONException if the document is malformed
+     */
+    public void skipValue() {
+        switch (peek()) {
+            case '{':
+                beginObject();
+                while (nextField(Fields.NONE) != END) skipValue();
+                break;
+            case '[':
+                beginArray();
+                while (hasNextElement()) skipValue();
+                break;
+            case '"':
+                scanString();
+                break;
+            case 't':
+            case 'f':
+                nextBoolean();
+                break;
+            case 'n':
+                if (!nextNull()) throw error("Unexpected value");
+                break;
+            default:
+                nextLong();
+        }
+    }
+
+    private boolean nextMember(char close) {
+        if (depth == 0)
+            throw error("Not inside an object or array");
+
+        if (peek() == close) {
+            pos++;
+            depth--;
+            return false;
+        }
+
+        if (first[depth - 1])
+            first[depth - 1] = false;
+        else
+            expect(',');
+
+        return true;
+    }
+
+    private void push() {
+        if (depth == first.length)
+            first = Arrays.copyOf(first, depth * 2);
+
+        first[depth++] = true;
+    }
+
+    /**
+     * Moves behind the string starting at the current position.
+     * @return the index of the closing quote
+     */
+    private int scanString() {
+        pos++;
+
+        while (pos < end) {
+            byte b = buf[pos++];
+
+            if (b == '\\')
+                pos++;
+            else if (b == '"')
+                return pos - 1;
+        }
+
+        throw error("Unterminated string");
+    }
+
+    private String unescape(int start, int stop) {
+        StringBuilder builder = new StringBuilder(stop - start);
+        int plain = start;
+
+        for (int i = start; i < stop; i++) {
+            if (buf[i] != '\\')
+                continue;
+
+            builder.append(new String(buf, plain, i - plain, StandardCharsets.UTF_8));
+            char escaped = (char) buf[++i];
+
+            switch (escaped) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= stop) throw error("Invalid unicode escape");
+                    builder.append((char) Integer.parseInt(new String(buf, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                    break;
+                default: builder.append(escaped);
+            }
+
+            plain = i + 1;
+        }
+
+        return builder.append(new String(buf, plain, stop - plain, StandardCharsets.UTF_8)).toString();
+    }
+
+    private boolean regionMatches(byte[] name, int start) {
+        for (int i = 0; i < name.length; i++)
+            if (buf[start + i] != name[i])
+                return false;
+
+        return true;
+    }
+
+    private boolean consumeLiteral(String literal) {
+        if (end - pos < literal.length())
+            return false;
+
+        for (int i = 0; i < literal.length(); i++)
+            if (buf[pos + i] != literal.charAt(i))
+                return false;
+
+        pos += literal.length();
+        return true;
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("Expected '" + c + "'");
+
+        pos++;
+    }
+
+    private char peek() {
+        skipWhitespace();
+
+        if (pos >= end)
+            throw error("Unexpected end of document");
+
+        return (char) buf[pos];
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\n' || buf[pos] == '\r' || buf[pos] == '\t'))
+            pos++;
+    }
+
+    private JSONException error(String message) {
+        return new JSONException(message + " at " + pos);
+    }
+
+    /**
+     * A set of field names, pre-encoded for matching against the raw bytes of a document.
+     */
+    public static final class Fields {
+        static final Fields NONE = new Fields();
+
+        private final byte[][] names;
+
+        /**
+         * Creates a new set of field names.
+         * @param names the names of the requested fields; {@link #nextField(Fields)} returns their index
+         */
+        public Fields(String... names) {
+            this.names = new byte[names.length][];
+
+            for (int i = 0; i < names.length; i++)
+                this.names[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.felixtech.mcpit.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies.
+ * <br>Values are recorded in microseconds into logarithmic buckets with four sub-buckets per power of two, so every
+ * reported percentile is accurate to about 20%.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+
+        counts.incrementAndGet(index(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+
+        long current;
+        while (micros > (current = max.get()) && !max.compareAndSet(current, micros));
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     * @return the number of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean latency.
+     * @return the mean in milliseconds or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / (n * 1000.0);
+    }
+
+    /**
+     * Returns the maximum latency.
+     * @return the maximum in milliseconds
+     */
+    public double getMax() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * Returns a percentile of the recorded latencies.
+     * @param percentile the percentile between 0 and 100, e.g. 95
+     * @return the latency in milliseconds below which the given percentage of values lies, or 0 if nothing has been
+     * recorded
+     */
+    public double getPercentile(double percentile) {
+        long n = count.get();
+
+        if (n == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+
+            if (seen >= Math.max(1, rank))
+                return Math.min(upperBound(i), max.get()) / 1000.0;
+        }
+
+        return getMax();
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS)
+            return (int) micros;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return (exponent - 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int exponent = index / SUB_BUCKETS + 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 2)) - 1;
+    }
+}
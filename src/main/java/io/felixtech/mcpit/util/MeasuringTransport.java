@@ -0,0 +1,50 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * A {@link HttpTransport} recording the latency, the size and the outcome of every attempt in the
+ * {@link EndpointMetrics} of its endpoint.
+ * <br>The transport belongs directly above the one sending the requests over the network, so every retry, hedge and
+ * throttled response counts on its own and the latency doesn't include the time spent waiting for a permit or a retry.
+ * Attempts aborted by a {@link Cancellation} are not recorded.
+ */
+public final class MeasuringTransport implements HttpTransport {
+    private final HttpTransport delegate;
+    private final Function<HttpRequest, EndpointMetrics> metrics;
+
+    /**
+     * Creates a new {@code MeasuringTransport}.
+     * @param delegate the transport which sends the requests over the network
+     * @param metrics returns the metrics of the endpoint of a request or {@code null} if requests to the endpoint are
+     *                not recorded
+     */
+    public MeasuringTransport(HttpTransport delegate, Function<HttpRequest, EndpointMetrics> metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        EndpointMetrics endpoint = metrics.apply(request);
+
+        if (endpoint == null)
+            return delegate.send(request);
+
+        long start = System.nanoTime();
+        HttpResponse response;
+
+        try {
+            response = delegate.send(request);
+        } catch(IOException | RuntimeException e) {
+            if (request.getCancellation() == null || !request.getCancellation().isCancelled())
+                endpoint.recordFailure(System.nanoTime() - start);
+
+            throw e;
+        }
+
+        endpoint.record(System.nanoTime() - start, response);
+        return response;
+    }
+}
@@ -0,0 +1,450 @@
+package io.felixtech.mcpit.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A persistent index of name histories answering "who held this name when" without querying the API.
+ * <br>Histories are appended to a log file, which is scanned once when the index is first used and then
+ * memory-mapped. Only the position of the latest history of every UUID and the UUIDs ever holding a name are kept on
+ * the heap; the histories themselves are read from the mapped file. Records appended later are kept on the heap until
+ * they outgrow the mapping, which is then extended at once, so the file is remapped a logarithmic number of times.
+ * A history is only appended if it differs from the stored one.
+ * <br>Several processes may share the file: scans and appends hold a {@link FileLock}, and every append first indexes
+ * the records other processes appended since.
+ * <br>Without a file the log is kept in memory.
+ */
+public final class NameIndex {
+    private static final int MAGIC = 0x4D434E49; // "MCNI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int MIN_TAIL_SIZE = 64 * 1024;
+
+    private final File file;
+    private FileChannel channel = null;
+    private ByteBuffer data = null;
+    private int mapped = 0;
+    private ByteBuffer tail = null;
+    private int size = 0;
+    private boolean opened = false;
+
+    private final Map<UUID, Integer> latest = new HashMap<>();
+    private final Map<String, Set<UUID>> holders = new HashMap<>();
+
+    /**
+     * Creates a new {@code NameIndex}. The file is opened on first use.
+     * @param file the log file or {@code null} to keep the index in memory only
+     */
+    public NameIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Stores the name history of a user.
+     * @param uuid the UUID of the user (with or without dashes)
+     * @param history the name changes of the user
+     * @throws IllegalArgumentException thrown if the UUID is invalid
+     */
+    public synchronized void put(String uuid, List<Change> history) {
+        UUID id = parseUUID(uuid);
+
+        if (!open())
+            return;
+
+        List<Change> sorted = new ArrayList<>(history);
+        sorted.sort((a, b) -> Long.compare(a.changedToAt, b.changedToAt));
+
+        Integer offset = latest.get(id);
+
+        if (offset != null && read(offset).equals(sorted))
+            return;
+
+        byte[] record = encode(id, sorted);
+
+        try {
+            append(record);
+        } catch(IOException e) {
+            System.err.println(e);
+            return;
+        }
+
+        index(id, size - record.length, sorted);
+    }
+
+    /**
+     * Returns the stored name history of a user.
+     * @param uuid the UUID of the user (with or without dashes)
+     * @return the name changes ordered by time or an empty list if the user is unknown
+     * @throws IllegalArgumentException thrown if the UUID is invalid
+     */
+    public synchronized List<Change> getHistory(String uuid) {
+        UUID id = parseUUID(uuid);
+
+        if (!open())
+            return Collections.emptyList();
+
+        Integer offset = latest.get(id);
+        return offset == null ? Collections.<Change>emptyList() : Collections.unmodifiableList(read(offset));
+    }
+
+    /**
+     * Returns all users who ever held a name.
+     * @param name the case-insensitive player name
+     * @return the UUIDs (without dashes) of the users
+     */
+    public synchronized Set<String> getHolders(String name) {
+        Set<String> result = new LinkedHashSet<>();
+
+        if (!open())
+            return result;
+
+        for (UUID id : holders.getOrDefault(name.toLowerCase(Locale.ROOT), Collections.<UUID>emptySet()))
+            result.add(UUIDs.format(id));
+
+        return result;
+    }
+
+    /**
+     * Finds the user who held a name at a point in time.
+     * @param name the case-insensitive player name
+     * @param time the point in time in milliseconds since the epoch
+     * @return the UUID (without dashes) of the user or {@code null} if no known user held the name at that time
+     */
+    public synchronized String getHolder(String name, long time) {
+        if (!open())
+            return null;
+
+        UUID holder = null;
+        long holderSince = Long.MIN_VALUE;
+
+        for (UUID id : holders.getOrDefault(name.toLowerCase(Locale.ROOT), Collections.<UUID>emptySet())) {
+            List<Change> history = read(latest.get(id));
+
+            for (int i = 0; i < history.size(); i++) {
+                Change change = history.get(i);
+                boolean held = change.name.equalsIgnoreCase(name) && change.changedToAt <= time
+                        && (i + 1 == history.size() || time < history.get(i + 1).changedToAt);
+
+                if (held && change.changedToAt >= holderSince) {
+                    holder = id;
+                    holderSince = change.changedToAt;
+                }
+            }
+        }
+
+        return holder == null ? null : UUIDs.format(holder);
+    }
+
+    /**
+     * Returns all users in the index.
+     * @return the UUIDs (without dashes) of the users
+     */
+    public synchronized Set<String> getUUIDs() {
+        Set<String> result = new LinkedHashSet<>();
+
+        if (open())
+            for (UUID id : latest.keySet())
+                result.add(UUIDs.format(id));
+
+        return result;
+    }
+
+    /**
+     * Returns the number of users in the index.
+     * @return the number of stored histories
+     */
+    public synchronized int size() {
+        return open() ? latest.size() : 0;
+    }
+
+    /**
+     * Releases the file. The index is opened again on the next use.
+     */
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch(IOException e) {
+                System.err.println(e);
+            }
+        }
+
+        channel = null;
+        data = null;
+        mapped = 0;
+        tail = null;
+        size = 0;
+        opened = false;
+        latest.clear();
+        holders.clear();
+    }
+
+    /**
+     * Opens and scans the log on first use.
+     * @return false if the index is unusable
+     */
+    private boolean open() {
+        if (opened)
+            return tail != null;
+
+        opened = true;
+        tail = ByteBuffer.allocate(file == null ? 4096 : 0);
+
+        if (file == null) {
+            tail.putInt(MAGIC).put((byte) VERSION);
+            size = HEADER_SIZE;
+            return true;
+        }
+
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+
+            channel = new RandomAccessFile(file, "rw").getChannel();
+
+            FileLock lock = channel.lock();
+
+            try {
+                if (channel.size() == 0)
+                    channel.write(ByteBuffer.wrap(new byte[HEADER_SIZE]).putInt(0, MAGIC).put(4, (byte) VERSION), 0);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+                if (channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC || header.get(4) != VERSION)
+                    throw new IOException("Not a name index: " + file);
+
+                // nothing is mapped yet, so a truncated last record can be cut off on every platform
+                scan(HEADER_SIZE, false);
+            } finally {
+                lock.release();
+            }
+
+            remap();
+            return true;
+        } catch(IOException e) {
+            System.err.println(e);
+            close();
+            opened = true;
+            return false;
+        }
+    }
+
+    /**
+     * Indexes the complete records from an offset to the end of the file and cuts off a truncated last record.
+     * <br>The file must be locked and must not be mapped beyond the offset.
+     * @param keep true to keep the scanned records on the heap
+     */
+    private void scan(int from, boolean keep) throws IOException {
+        long end = channel.size();
+        if (end > Integer.MAX_VALUE) throw new IOException("Name index too large: " + file);
+
+        // the stream reads at the position of the channel and must not be closed, which would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(from))));
+        int offset = from;
+
+        while (offset + 4 <= end) {
+            int length = in.readInt();
+
+            if (length < 18 || offset + 4 + length > end)
+                break;
+
+            byte[] record = new byte[4 + length];
+            ByteBuffer.wrap(record).putInt(length);
+
+            try {
+                in.readFully(record, 4, length);
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                index(new UUID(buffer.getLong(4), buffer.getLong(12)), offset, decode(buffer, 0));
+            } catch(EOFException | IndexOutOfBoundsException e) {
+                break;
+            }
+
+            if (keep)
+                keep(record);
+
+            offset += record.length;
+        }
+
+        if (offset < end) {
+            System.err.println("Truncated name index: " + file);
+            channel.truncate(offset);
+        }
+
+        size = offset;
+    }
+
+    private void index(UUID id, int offset, List<Change> history) {
+        latest.put(id, offset);
+
+        for (Change change : history)
+            holders.computeIfAbsent(change.name.toLowerCase(Locale.ROOT), name -> new LinkedHashSet<>()).add(id);
+    }
+
+    private void append(byte[] record) throws IOException {
+        if (channel == null) {
+            keep(record);
+            size += record.length;
+            return;
+        }
+
+        FileLock lock = channel.lock();
+
+        try {
+            if (channel.size() != size)
+                scan(size, true); // records appended by other processes
+
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+
+            while (buffer.hasRemaining())
+                channel.write(buffer, size + buffer.position());
+        } finally {
+            lock.release();
+        }
+
+        keep(record);
+        size += record.length;
+
+        if (tail.position() > Math.max(mapped, MIN_TAIL_SIZE))
+            remap();
+    }
+
+    /**
+     * Keeps a record which is not mapped yet on the heap.
+     */
+    private void keep(byte[] record) {
+        if (tail.remaining() < record.length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(tail.capacity() * 2, tail.position() + record.length));
+            tail.flip();
+            tail = grown.put(tail);
+        }
+
+        tail.put(record);
+    }
+
+    /**
+     * Maps the whole file, so no record is kept on the heap anymore.
+     */
+    private void remap() throws IOException {
+        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        mapped = size;
+        tail = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Encodes a record: length, UUID, number of changes and the changes (time, name length, UTF-8 name).
+     */
+    private static byte[] encode(UUID id, List<Change> history) {
+        byte[][] names = new byte[history.size()][];
+        int length = 8 + 8 + 2;
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = history.get(i).name.getBytes(StandardCharsets.UTF_8);
+            length += 8 + 2 + names[i].length;
+        }
+
+        ByteBuffer record = ByteBuffer.wrap(new byte[4 + length]);
+        record.putInt(length).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        record.putShort((short) names.length);
+
+        for (int i = 0; i < names.length; i++)
+            record.putLong(history.get(i).changedToAt).putShort((short) names[i].length).put(names[i]);
+
+        return record.array();
+    }
+
+    private List<Change> read(int offset) {
+        return offset < mapped ? decode(data, offset) : decode(tail, offset - mapped);
+    }
+
+    private static List<Change> decode(ByteBuffer data, int offset) {
+        int count = data.getShort(offset + 20) & 0xFFFF;
+        int position = offset + 22;
+        List<Change> history = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            long changedToAt = data.getLong(position);
+            byte[] name = new byte[data.getShort(position + 8) & 0xFFFF];
+            position += 10;
+
+            for (int j = 0; j < name.length; j++)
+                name[j] = data.get(position + j);
+
+            position += name.length;
+            history.add(new Change(new String(name, StandardCharsets.UTF_8), changedToAt));
+        }
+
+        return history;
+    }
+
+    private static UUID parseUUID(String uuid) {
+        UUID id = UUIDs.parse(uuid);
+        if (id == null) throw new IllegalArgumentException("Invalid UUID: " + uuid);
+        return id;
+    }
+
+    /**
+     * A name change of a user.
+     */
+    public static final class Change {
+        private final String name;
+        private final long changedToAt;
+
+        /**
+         * Creates a new {@code Change}.
+         * @param name the new name
+         * @param changedToAt the time of the change in milliseconds since the epoch or 0 for the original name
+         */
+        public Change(String name, long changedToAt) {
+            this.name = name;
+            this.changedToAt = changedToAt;
+        }
+
+        /**
+         * Returns the new name.
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the time of the change.
+         * @return the time in milliseconds since the epoch or 0 for the original name
+         */
+        public long getChangedToAt() {
+            return changedToAt;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Change)) return false;
+            Change other = (Change) o;
+            return changedToAt == other.changedToAt && name.equals(other.name);
+        }
+
+        @Override public int hashCode() {
+            return 31 * name.hashCode() + Long.hashCode(changedToAt);
+        }
+
+        @Override public String toString() {
+            return name + "@" + changedToAt;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.felixtech.mcpit.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact prefix tree (radix tree) mapping strings to values, for completing prefixes.
+ * <br>Chains of nodes with a single child are merged into one node with a longer label, so the number of nodes
+ * grows with the number of keys instead of their total length. Children are kept in sorted arrays, so completions are
+ * returned in lexicographic order of their keys.
+ * @param <V> the type of the values
+ */
+public final class PrefixTrie<V> {
+    private final Node<V> root = new Node<>("");
+    private int size = 0;
+
+    /**
+     * Maps a key to a value, replacing the previous value of the key.
+     * @param key the key
+     * @param value the value
+     * @throws IllegalArgumentException thrown if the value is {@code null}
+     */
+    public synchronized void put(String key, V value) {
+        if (value == null) throw new IllegalArgumentException("Value must not be null!");
+
+        Node<V> node = root;
+        int i = 0;
+
+        while (i < key.length()) {
+            int index = node.find(key.charAt(i));
+
+            if (index < 0) {
+                node.insert(-index - 1, new Node<>(key.substring(i), value));
+                size++;
+                return;
+            }
+
+            Node<V> child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+
+            if (common < child.label.length()) {
+                Node<V> middle = new Node<>(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = newArray(1);
+                middle.children[0] = child;
+                node.children[index] = middle;
+                child = middle;
+            }
+
+            node = child;
+            i += common;
+        }
+
+        if (node.value == null)
+            size++;
+
+        node.value = value;
+    }
+
+    /**
+     * Returns the values of all keys starting with a prefix.
+     * @param prefix the prefix
+     * @param limit the maximum number of values
+     * @return the values in lexicographic order of their keys
+     */
+    public synchronized List<V> complete(String prefix, int limit) {
+        List<V> values = new ArrayList<>(Math.min(limit, 16));
+        Node<V> node = root;
+        int i = 0;
+
+        while (i < prefix.length()) {
+            int index = node.find(prefix.charAt(i));
+
+            if (index < 0)
+                return values;
+
+            Node<V> child = node.children[index];
+            int common = commonPrefix(child.label, prefix, i);
+
+            if (i + common < prefix.length() && common < child.label.length())
+                return values;
+
+            node = child;
+            i += common;
+        }
+
+        collect(node, values, limit);
+        return values;
+    }
+
+    /**
+     * Returns the number of keys.
+     * @return the number of keys
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static <V> void collect(Node<V> node, List<V> values, int limit) {
+        if (values.size() >= limit)
+            return;
+
+        if (node.value != null)
+            values.add(node.value);
+
+        for (Node<V> child : node.children)
+            collect(child, values, limit);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+
+        while (i < max && label.charAt(i) == key.charAt(offset + i))
+            i++;
+
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] newArray(int length) {
+        return (Node<V>[]) new Node<?>[length];
+    }
+
+    private static final class Node<V> {
+        private String label;
+        private Node<V>[] children = newArray(0);
+        private V value;
+
+        private Node(String label) {
+            this(label, null);
+        }
+
+        private Node(String label, V value) {
+            this.label = label;
+            this.value = value;
+        }
+
+        /**
+         * Finds the child whose label starts with a character.
+         * @return the index of the child or {@code -(insertion point) - 1}
+         */
+        private int find(char c) {
+            int low = 0, high = children.length - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = children[mid].label.charAt(0);
+
+                if (first < c)
+                    low = mid + 1;
+                else if (first > c)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+
+            return -low - 1;
+        }
+
+        private void insert(int index, Node<V> child) {
+            Node<V>[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            grown[index] = child;
+            children = grown;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.felixtech.mcpit.util;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link HttpTransport} writing every request and response pair to an archive, which can be served later by a
+ * {@link ReplayTransport}.
+ * <br>Records are appended to an existing archive. Every record is flushed immediately, so an archive stays readable
+ * even if the process is killed; such an archive is repaired before the next session appends to it. Failed requests
+ * (exceptions) are not recorded.
+ */
+public final class RecordingTransport implements HttpTransport, Closeable {
+    private final HttpTransport delegate;
+    private final DataOutputStream out;
+    private long records = 0;
+
+    /**
+     * Creates a new {@code RecordingTransport}.
+     * @param delegate the transport sending the requests
+     * @param archive the archive to append to
+     * @throws IOException thrown if the archive can't be opened
+     */
+    public RecordingTransport(HttpTransport delegate, File archive) throws IOException {
+        ResponseArchive.repair(archive);
+        boolean empty = !archive.isFile() || archive.length() == 0;
+
+        this.delegate = delegate;
+        this.out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(archive, true), 8192, true));
+
+        if (empty) {
+            ResponseArchive.writeHeader(out);
+            out.flush();
+        }
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        HttpResponse response = delegate.send(request);
+
+        synchronized (out) {
+            ResponseArchive.writeRecord(out, request, response);
+            out.flush();
+            records++;
+        }
+
+        return response;
+    }
+
+    /**
+     * Returns the number of recorded responses.
+     * @return the number of records written by this transport
+     */
+    public long getRecords() {
+        synchronized (out) {
+            return records;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (out) {
+            out.close();
+        }
+    }
+}
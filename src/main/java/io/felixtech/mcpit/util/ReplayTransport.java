@@ -0,0 +1,88 @@
+package io.felixtech.mcpit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link HttpTransport} answering requests from an archive written by a {@link RecordingTransport}.
+ * <br>The complete archive is loaded into memory, so recorded requests are answered without any delay or network
+ * access. Requests match if their method, URL and body are equal.
+ */
+public final class ReplayTransport implements HttpTransport {
+    private final Map<String, HttpResponse> responses;
+    private final MissPolicy missPolicy;
+    private final HttpTransport fallback;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new {@code ReplayTransport}.
+     * @param archive the archive to serve
+     * @param missPolicy how requests without a recorded response are handled
+     * @param fallback the transport sending requests without a recorded response, only used with
+     *                 {@link MissPolicy#FALL_THROUGH}
+     * @throws IOException thrown if the archive can't be read
+     * @throws IllegalArgumentException thrown if the policy is {@link MissPolicy#FALL_THROUGH} without a fallback
+     */
+    public ReplayTransport(File archive, MissPolicy missPolicy, HttpTransport fallback) throws IOException {
+        if (missPolicy == MissPolicy.FALL_THROUGH && fallback == null) throw new IllegalArgumentException("Fall through requires a fallback transport!");
+
+        this.responses = ResponseArchive.read(archive);
+        this.missPolicy = missPolicy;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        HttpResponse response = responses.get(ResponseArchive.key(request.getMethod(), request.getUrl(), request.getBody()));
+
+        if (response != null) {
+            hits.incrementAndGet();
+            return response;
+        }
+
+        misses.incrementAndGet();
+
+        if (missPolicy == MissPolicy.FAIL)
+            throw new IOException("No recorded response for " + request);
+
+        return fallback.send(request);
+    }
+
+    /**
+     * Returns the number of recorded responses.
+     * @return the number of distinct requests in the archive
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    /**
+     * Returns the number of requests answered from the archive.
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of requests without a recorded response.
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Defines how requests without a recorded response are handled.
+     */
+    public enum MissPolicy {
+        /** Fails the request with an {@link IOException}. */
+        FAIL,
+        /** Sends the request with the fallback transport. */
+        FALL_THROUGH
+    }
+}
@@ -0,0 +1,179 @@
+package io.felixtech.mcpit.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * The file format of the archives written by {@link RecordingTransport} and read by {@link ReplayTransport}.
+ * <br>An archive is a gzip stream (possibly consisting of several members, one per recording session) starting with
+ * a magic number and a version, followed by one record per request and response pair.
+ * <br>A session which was killed before closing its archive leaves an unterminated member, which would swallow the
+ * member of the next session; such an archive is {@link #repair(File) repaired} before it is appended to.
+ */
+final class ResponseArchive {
+    static final int MAGIC = 0x4D435041; // "MCPA"
+    static final int VERSION = 1;
+
+    private static final int NO_BODY = -1;
+
+    private ResponseArchive() {}
+
+    /**
+     * Returns the key identifying equal requests.
+     */
+    static String key(String method, URL url, byte[] body) {
+        String key = method + " " + url;
+        return body == null ? key : key + "\n" + new String(body, StandardCharsets.UTF_8);
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    static void writeRecord(DataOutputStream out, HttpRequest request, HttpResponse response) throws IOException {
+        writeRecord(out, request.getMethod(), request.getUrl(), request.getBody(), response);
+    }
+
+    private static void writeRecord(DataOutputStream out, String method, URL url, byte[] requestBody, HttpResponse response) throws IOException {
+        out.writeUTF(method);
+        out.writeUTF(url.toString());
+        writeBytes(out, requestBody);
+        out.writeShort(response.getStatus());
+        out.writeShort(response.getHeaders().size());
+
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            out.writeUTF(header.getKey());
+            out.writeUTF(header.getValue());
+        }
+
+        writeBytes(out, response.getBody());
+    }
+
+    /**
+     * Reads all records of an archive. Later responses to the same request replace earlier ones. A truncated or
+     * corrupt last record (e.g. after the recording process was killed) is ignored.
+     * @throws IOException thrown if the file can't be read or is not an archive
+     */
+    static Map<String, HttpResponse> read(File file) throws IOException {
+        Map<String, HttpResponse> responses = new HashMap<>();
+
+        if (!read(file, (method, url, requestBody, response) -> responses.put(key(method, url, requestBody), response)))
+            System.err.println("Truncated response archive: " + file);
+
+        return responses;
+    }
+
+    /**
+     * Rewrites an archive whose last gzip member is unterminated or corrupt with all its complete records, so
+     * further sessions can be appended to it.
+     * @return true if the archive was rewritten
+     * @throws IOException thrown if the file can't be read or written or is not an archive
+     */
+    static boolean repair(File file) throws IOException {
+        if (!file.isFile() || file.length() == 0 || read(file, (method, url, requestBody, response) -> {}))
+            return false;
+
+        File repaired = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(repaired), 8192))) {
+            writeHeader(out);
+            read(file, (method, url, requestBody, response) -> writeRecord(out, method, url, requestBody, response));
+        }
+
+        Files.move(repaired.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        System.err.println("Repaired truncated response archive: " + file);
+        return true;
+    }
+
+    /**
+     * Reads the records of an archive until its end or the first truncated or corrupt record.
+     * @return true if the archive ends after a complete record and a terminated gzip member
+     */
+    private static boolean read(File file, RecordHandler handler) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new FileInputStream(file));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(gzip))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a response archive: " + file);
+
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Unsupported response archive version " + version + ": " + file);
+
+            while (true) {
+                String method;
+
+                try {
+                    method = in.readUTF();
+                } catch(EOFException e) {
+                    // a terminated stream keeps returning -1, an unterminated one fails again
+                    try {
+                        return gzip.read() == -1;
+                    } catch(EOFException | ZipException ex) {
+                        return false;
+                    }
+                } catch(ZipException e) {
+                    return false;
+                }
+
+                try {
+                    URL url = new URL(in.readUTF());
+                    byte[] requestBody = readBytes(in);
+                    int status = in.readUnsignedShort();
+                    int count = in.readUnsignedShort();
+                    Map<String, String> headers = new HashMap<>();
+
+                    for (int i = 0; i < count; i++)
+                        headers.put(in.readUTF(), in.readUTF());
+
+                    byte[] body = readBytes(in);
+                    handler.accept(method, url, requestBody, new HttpResponse(status, headers, body == null ? new byte[0] : body));
+                } catch(EOFException | ZipException e) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(NO_BODY);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length == NO_BODY)
+            return null;
+
+        if (length < 0) throw new IOException("Corrupt response archive");
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Receives the records of an archive.
+     */
+    private interface RecordHandler {
+        void accept(String method, URL url, byte[] requestBody, HttpResponse response) throws IOException;
+    }
+}
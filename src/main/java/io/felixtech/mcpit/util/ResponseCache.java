@@ -0,0 +1,384 @@
+package io.felixtech.mcpit.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A two-tier cache for API responses.
+ * <br>Entries are kept in a bounded in-memory LRU and, if a directory is given, written to disk so they survive restarts.
+ * The disk tier is bounded by the size of its files; the least recently used files are deleted first. The absence of a
+ * player can be cached as well (negative caching).
+ * <br>Expired entries are kept for a while, so {@link #getStale(String)} can still serve the last known response while
+ * an endpoint is unavailable.
+ */
+public final class ResponseCache {
+    private static final long DEFAULT_MAX_DISK_BYTES = 64L * 1024 * 1024;
+
+    private final Map<String, CachedResponse> memory;
+    private final File directory;
+    private final DiskQuota quota;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private volatile long maxStale = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * Creates a new {@code ResponseCache} keeping up to 64 MiB of entries on disk.
+     * @param maxEntries the maximum number of entries kept in memory
+     * @param directory the directory of the disk tier or {@code null} to keep entries in memory only
+     * @throws IllegalArgumentException thrown if the maximum number of entries is not greater than zero
+     */
+    public ResponseCache(int maxEntries, File directory) {
+        this(maxEntries, directory, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * Creates a new {@code ResponseCache}.
+     * @param maxEntries the maximum number of entries kept in memory
+     * @param directory the directory of the disk tier or {@code null} to keep entries in memory only
+     * @param maxDiskBytes the maximum size of all entries kept on disk
+     * @throws IllegalArgumentException thrown if the maximum number of entries or the maximum size is not greater than
+     *                                  zero
+     */
+    public ResponseCache(final int maxEntries, File directory, long maxDiskBytes) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("Maximum number of entries must be greater than zero!");
+
+        this.memory = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.directory = directory;
+        this.quota = directory == null ? null : new DiskQuota(directory, maxDiskBytes);
+    }
+
+    /**
+     * Looks up a cached response.
+     * @param key the cache key
+     * @return the cached entry or {@code null} if there is no valid entry
+     */
+    public CachedResponse get(String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse entry = readFromMemory(key, now);
+
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                memoryHits.incrementAndGet();
+                return entry;
+            }
+
+            // the expired entry is kept as fallback, the disk tier can't hold a newer one
+            misses.incrementAndGet();
+            return null;
+        }
+
+        entry = readFromDisk(key, now);
+
+        if (entry != null) {
+            synchronized (memory) {
+                memory.put(key, entry);
+            }
+
+            if (entry.expiresAt > now) {
+                diskHits.incrementAndGet();
+                return entry;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Looks up a cached response, even if it has expired.
+     * <br>Used as fallback while the endpoint is unavailable; entries which expired longer ago than the
+     * {@link #setMaxStale(long) maximum staleness} are not returned.
+     * @param key the cache key
+     * @return the cached entry, which may have {@link CachedResponse#isExpired() expired}, or {@code null} if there is none
+     */
+    public CachedResponse getStale(String key) {
+        long now = System.currentTimeMillis();
+        CachedResponse entry = readFromMemory(key, now);
+
+        if (entry == null) {
+            entry = readFromDisk(key, now);
+
+            if (entry != null) {
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+            }
+        }
+
+        if (entry != null && entry.expiresAt <= now)
+            staleHits.incrementAndGet();
+
+        return entry;
+    }
+
+    /**
+     * Configures how long expired entries are kept as fallback for an unavailable endpoint.
+     * @param maxStale the time after the expiry in milliseconds, 0 to drop entries once they expire
+     * @throws IllegalArgumentException thrown if the time is negative
+     */
+    public void setMaxStale(long maxStale) {
+        if (maxStale < 0) throw new IllegalArgumentException("Maximum staleness must not be negative!");
+        this.maxStale = maxStale;
+    }
+
+    /**
+     * Caches a response.
+     * @param key the cache key
+     * @param body the UTF-8 encoded response body
+     * @param ttl the time-to-live in milliseconds
+     */
+    public void put(String key, byte[] body, long ttl) {
+        store(key, new CachedResponse(body, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Caches the absence of a player.
+     * @param key the cache key
+     * @param ttl the time-to-live in milliseconds
+     */
+    public void putMissing(String key, long ttl) {
+        store(key, new CachedResponse(null, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Removes all entries from both tiers.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+
+        File[] files = directory == null ? null : directory.listFiles();
+
+        if (files != null)
+            for (File file : files)
+                file.delete();
+
+        if (quota != null)
+            quota.reset();
+    }
+
+    /**
+     * Returns the number of lookups answered from memory.
+     * @return the number of memory hits
+     */
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    /**
+     * Returns the number of lookups answered from disk.
+     * @return the number of disk hits
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * Returns the number of lookups answered from either tier.
+     * @return the number of hits
+     */
+    public long getHits() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    /**
+     * Returns the number of lookups which could not be answered from the cache.
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of expired entries served as fallback.
+     * @return the number of stale hits
+     */
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    /**
+     * Returns the number of entries which could not be written to disk.
+     * @return the number of failed writes
+     */
+    public long getWriteFailures() {
+        return writeFailures.get();
+    }
+
+    private void store(String key, CachedResponse entry) {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+
+        writeToDisk(key, entry);
+    }
+
+    private CachedResponse readFromMemory(String key, long now) {
+        synchronized (memory) {
+            CachedResponse entry = memory.get(key);
+
+            if (entry != null && now - entry.expiresAt >= maxStale) {
+                memory.remove(key);
+                return null;
+            }
+
+            return entry;
+        }
+    }
+
+    private CachedResponse readFromDisk(String key, long now) {
+        if (directory == null)
+            return null;
+
+        Path file = file(key);
+
+        if (!Files.isRegularFile(file))
+            return null;
+
+        long expiresAt;
+        byte[] body = null;
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            expiresAt = in.readLong();
+
+            if (now - expiresAt < maxStale && in.readBoolean()) {
+                body = new byte[in.readInt()];
+                in.readFully(body);
+            }
+        } catch(IOException e) {
+            return null;
+        }
+
+        if (now - expiresAt >= maxStale) {
+            long length = file.toFile().length();
+
+            try {
+                if (Files.deleteIfExists(file))
+                    quota.changed(-length);
+            } catch(IOException e) {
+                // the file is overwritten or swept later
+            }
+
+            return null;
+        }
+
+        file.toFile().setLastModified(now);
+        return new CachedResponse(body, expiresAt);
+    }
+
+    private void writeToDisk(String key, CachedResponse entry) {
+        if (directory == null)
+            return;
+
+        Path temp = null;
+
+        try {
+            Files.createDirectories(directory.toPath());
+
+            Path file = file(key);
+            long previous = file.toFile().length();
+            temp = Files.createTempFile(directory.toPath(), "entry", ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeLong(entry.expiresAt);
+                out.writeBoolean(entry.body != null);
+
+                if (entry.body != null) {
+                    out.writeInt(entry.body.length);
+                    out.write(entry.body);
+                }
+            }
+
+            long length = Files.size(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            quota.changed(length - previous);
+        } catch(IOException e) {
+            // the entry stays in memory, failures are reported by getWriteFailures()
+            writeFailures.incrementAndGet();
+
+            if (temp != null)
+                temp.toFile().delete();
+        }
+    }
+
+    private Path file(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2);
+
+            for (byte b : hash)
+                name.append(String.format("%02x", b));
+
+            return new File(directory, name.toString()).toPath();
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached response.
+     */
+    public static final class CachedResponse {
+        private final byte[] body;
+        private final long expiresAt;
+
+        private CachedResponse(byte[] body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Returns the cached response body.
+         * <br>The returned array is shared and must not be modified.
+         * @return the UTF-8 encoded response body or {@code null} if the player doesn't exist
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Checks if this entry caches the absence of a player.
+         * @return true if the player doesn't exist
+         */
+        public boolean isMissing() {
+            return body == null;
+        }
+
+        /**
+         * Checks if this entry has expired and is only served as fallback.
+         * @return true if the entry is stale
+         */
+        public boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+
+        /**
+         * Returns when this entry expires.
+         * @return the expiry time in milliseconds since the epoch
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls with the same key.
+ * <br>The first caller for a key performs the call, every caller arriving while the call is still running waits for
+ * it and receives the same result or exception. A waiting caller gives up once its {@link Deadline} has passed,
+ * without affecting the running call.
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Performs a call unless a call with the same key is already running, in which case its result is shared.
+     * @param key the key identifying the call
+     * @param call the call to perform
+     * @return the result of the call
+     * @throws IOException thrown if the call failed
+     * @throws SocketTimeoutException thrown if the deadline of the current thread passed while waiting for a running
+     *                                call
+     */
+    public V execute(K key, Call<V> call) throws IOException {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            V result = call.call();
+            future.complete(result);
+            return result;
+        } catch(IOException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Returns the number of calls which were answered by sharing the result of a running call.
+     * @return the number of coalesced calls
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws IOException {
+        Deadline deadline = Deadline.current();
+
+        try {
+            if (deadline == null)
+                return future.get();
+
+            return future.get(deadline.remaining(), TimeUnit.MILLISECONDS);
+        } catch(TimeoutException e) {
+            throw new SocketTimeoutException("Deadline exceeded while waiting for a running call");
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a running call");
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A call which can be coalesced.
+     * @param <V> the type of the result
+     */
+    @FunctionalInterface
+    public interface Call<V> {
+        V call() throws IOException;
+    }
+}
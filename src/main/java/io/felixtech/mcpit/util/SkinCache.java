@@ -0,0 +1,256 @@
+package io.felixtech.mcpit.util;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+
+/**
+ * A content-addressed cache for skin textures and their renders.
+ * <br>Texture URLs on textures.minecraft.net end with the hash of the texture, so the hash is used as cache key and
+ * players sharing a skin share one cached copy. Raw PNGs are kept on disk once they were decoded successfully.
+ * Rendered bodies are kept in memory, already converted to the format of the screen so they can be drawn without
+ * conversion. The memory tier is bounded by the size of the decoded images and the disk tier by the size of the files;
+ * the least recently used images are evicted first.
+ */
+public final class SkinCache {
+    private static final Pattern HASH = Pattern.compile("[0-9a-fA-F]{1,128}");
+    private static final long DEFAULT_MAX_DISK_BYTES = 64L * 1024 * 1024;
+
+    private final Map<String, BufferedImage> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxBytes;
+    private final File directory;
+    private final DiskQuota quota;
+    private long bytes = 0;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new {@code SkinCache} keeping up to 64 MiB of raw textures on disk.
+     * @param maxBytes the maximum size of all decoded images kept in memory
+     * @param directory the directory of the disk tier or {@code null} to keep no raw textures
+     * @throws IllegalArgumentException thrown if the maximum size is not greater than zero
+     */
+    public SkinCache(long maxBytes, File directory) {
+        this(maxBytes, directory, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * Creates a new {@code SkinCache}.
+     * @param maxBytes the maximum size of all decoded images kept in memory
+     * @param directory the directory of the disk tier or {@code null} to keep no raw textures
+     * @param maxDiskBytes the maximum size of all raw textures kept on disk
+     * @throws IllegalArgumentException thrown if a maximum size is not greater than zero
+     */
+    public SkinCache(long maxBytes, File directory, long maxDiskBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Maximum size must be greater than zero!");
+
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        this.quota = directory == null ? null : new DiskQuota(directory, maxDiskBytes);
+    }
+
+    /**
+     * Returns the hash of a texture URL.
+     * @param url the texture URL, e.g. {@code http://textures.minecraft.net/texture/<hash>}
+     * @return the hash of the texture
+     */
+    public static String hashOf(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Returns the rendered body of a skin, rendering and caching it if necessary.
+     * @param hash the hash of the skin texture
+     * @param source downloads the texture if it is not cached on disk
+     * @param slim true for the slim model
+     * @param scale the scale of the render
+     * @return the rendered body in a format compatible with the screen
+     * @throws IOException thrown if the texture can't be loaded
+     */
+    public BufferedImage getRender(String hash, SingleFlight.Call<byte[]> source, boolean slim, int scale) throws IOException {
+        String key = hash + (slim ? "/slim/" : "/classic/") + scale;
+        BufferedImage render;
+
+        synchronized (memory) {
+            render = memory.get(key);
+        }
+
+        if (render != null) {
+            memoryHits.incrementAndGet();
+            return render;
+        }
+
+        render = toCompatible(SkinRenderer.render(getTexture(hash, source), slim, scale));
+
+        synchronized (memory) {
+            BufferedImage previous = memory.put(key, render);
+            bytes += sizeOf(render) - (previous == null ? 0 : sizeOf(previous));
+
+            for (Iterator<BufferedImage> it = memory.values().iterator(); bytes > maxBytes && it.hasNext(); ) {
+                BufferedImage eldest = it.next();
+
+                if (eldest == render)
+                    break;
+
+                bytes -= sizeOf(eldest);
+                it.remove();
+            }
+        }
+
+        return render;
+    }
+
+    /**
+     * Returns the decoded skin texture, reading it from disk or downloading it if necessary.
+     * @param hash the hash of the skin texture
+     * @param source downloads the texture if it is not cached on disk
+     * @return the decoded texture
+     * @throws IOException thrown if the texture can't be loaded or is not an image
+     */
+    public BufferedImage getTexture(String hash, SingleFlight.Call<byte[]> source) throws IOException {
+        Path file = file(hash);
+
+        if (file != null && Files.isRegularFile(file)) {
+            BufferedImage texture = readFromDisk(file);
+
+            if (texture != null) {
+                diskHits.incrementAndGet();
+                return texture;
+            }
+        }
+
+        misses.incrementAndGet();
+        byte[] png = source.call();
+        BufferedImage texture = ImageIO.read(new ByteArrayInputStream(png));
+        if (texture == null) throw new IOException("Invalid skin texture: " + hash);
+
+        // only textures which could be decoded are kept, an invalid payload is downloaded again next time
+        if (file != null)
+            writeToDisk(file, png);
+
+        return texture;
+    }
+
+    /**
+     * Returns the number of renders answered from memory.
+     * @return the number of memory hits
+     */
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    /**
+     * Returns the number of textures read from disk.
+     * @return the number of disk hits
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * Returns the number of textures which had to be downloaded.
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the size of all images currently kept in memory.
+     * @return the size in bytes
+     */
+    public long getMemorySize() {
+        synchronized (memory) {
+            return bytes;
+        }
+    }
+
+    private Path file(String hash) {
+        if (directory == null || !HASH.matcher(hash).matches())
+            return null;
+
+        return new File(directory, hash.toLowerCase(Locale.ROOT) + ".png").toPath();
+    }
+
+    /**
+     * Reads and decodes a texture from disk, deleting the file if it can't be decoded.
+     * @return the texture or {@code null} if the file is unreadable or invalid
+     */
+    private BufferedImage readFromDisk(Path file) {
+        try {
+            byte[] png = Files.readAllBytes(file);
+            BufferedImage texture = ImageIO.read(new ByteArrayInputStream(png));
+
+            if (texture != null) {
+                file.toFile().setLastModified(System.currentTimeMillis());
+                return texture;
+            }
+
+            Files.deleteIfExists(file);
+            quota.changed(-png.length);
+        } catch(IOException e) {
+            System.err.println(e);
+        }
+
+        return null;
+    }
+
+    private void writeToDisk(Path file, byte[] png) {
+        try {
+            Files.createDirectories(directory.toPath());
+
+            long previous = file.toFile().length();
+            Path temp = Files.createTempFile(directory.toPath(), "skin", ".tmp");
+            Files.write(temp, png);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            quota.changed(png.length - previous);
+        } catch(IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Converts an image into the format of the screen, so drawing it needs no conversion.
+     */
+    private static BufferedImage toCompatible(BufferedImage image) {
+        if (GraphicsEnvironment.isHeadless())
+            return image;
+
+        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+
+        if (image.getColorModel().equals(gc.getColorModel()))
+            return image;
+
+        BufferedImage compatible = gc.createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+        Graphics2D g = compatible.createGraphics();
+
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+
+        return compatible;
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
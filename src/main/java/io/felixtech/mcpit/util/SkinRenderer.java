@@ -0,0 +1,137 @@
+package io.felixtech.mcpit.util;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders the front view of a players body from a Minecraft skin texture.
+ * <br>Supports 64x64 skins (classic and slim model) as well as legacy 64x32 skins, including the overlay layer
+ * (hat, jacket, sleeves and pants). Works completely offline.
+ */
+public final class SkinRenderer {
+    /** The width of the rendered body in skin pixels. */
+    public static final int WIDTH = 16;
+    /** The height of the rendered body in skin pixels. */
+    public static final int HEIGHT = 32;
+    /** The default scale factor, matching the size of the previously used remote render. */
+    public static final int DEFAULT_SCALE = 10;
+
+    private SkinRenderer() {}
+
+    /**
+     * Renders the body of a skin file.
+     * @param skin the skin PNG file
+     * @param slim true for the slim (Alex) model with 3 pixels wide arms, false for the classic (Steve) model
+     * @return the rendered body
+     * @throws IOException thrown if the file can't be read or is not a valid skin
+     */
+    public static BufferedImage render(File skin, boolean slim) throws IOException {
+        BufferedImage image = ImageIO.read(skin);
+        if (image == null) throw new IOException("Not an image: " + skin);
+        return render(image, slim, DEFAULT_SCALE);
+    }
+
+    /**
+     * Renders the body of a skin.
+     * @param skin the skin texture (64x64 or legacy 64x32)
+     * @param slim true for the slim (Alex) model with 3 pixels wide arms, false for the classic (Steve) model
+     * @param scale the size of a skin pixel in the rendered image
+     * @return the rendered body with a size of {@value #WIDTH}x{@value #HEIGHT} skin pixels times the scale
+     * @throws IllegalArgumentException thrown if the skin has an invalid size or the scale is not greater than zero
+     */
+    public static BufferedImage render(BufferedImage skin, boolean slim, int scale) {
+        if (scale <= 0) throw new IllegalArgumentException("Scale must be greater than zero!");
+
+        int unit = skin.getWidth() / 64;
+        boolean legacy = skin.getHeight() * 2 == skin.getWidth();
+
+        if (unit == 0 || skin.getWidth() % 64 != 0 || !(legacy || skin.getHeight() == skin.getWidth()))
+            throw new IllegalArgumentException("Invalid skin size: " + skin.getWidth() + "x" + skin.getHeight());
+
+        BufferedImage texture = new BufferedImage(skin.getWidth(), skin.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        texture.getGraphics().drawImage(skin, 0, 0, null);
+
+        int arm = slim ? 3 : 4;
+        BufferedImage body = new BufferedImage(WIDTH * scale, HEIGHT * scale, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = body.createGraphics();
+
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.scale(scale, scale);
+
+            // base layer, always opaque
+            g.setComposite(AlphaComposite.Src);
+            part(g, texture, unit, 8, 8, 8, 8, 4, 0, false, true);          // head
+            part(g, texture, unit, 20, 20, 8, 12, 4, 8, false, true);       // body
+            part(g, texture, unit, 44, 20, arm, 12, 4 - arm, 8, false, true); // right arm
+            part(g, texture, unit, 4, 20, 4, 12, 4, 20, false, true);       // right leg
+
+            if (legacy) {
+                part(g, texture, unit, 44, 20, arm, 12, 12, 8, true, true);  // left arm (mirrored right arm)
+                part(g, texture, unit, 4, 20, 4, 12, 8, 20, true, true);     // left leg (mirrored right leg)
+            } else {
+                part(g, texture, unit, 36, 52, arm, 12, 12, 8, false, true); // left arm
+                part(g, texture, unit, 20, 52, 4, 12, 8, 20, false, true);   // left leg
+            }
+
+            // overlay layer, blended over the base layer
+            g.setComposite(AlphaComposite.SrcOver);
+
+            if (!legacy || hasTransparency(texture, unit, 40, 8, 8, 8))
+                part(g, texture, unit, 40, 8, 8, 8, 4, 0, false, false);    // hat
+
+            if (!legacy) {
+                part(g, texture, unit, 20, 36, 8, 12, 4, 8, false, false);       // jacket
+                part(g, texture, unit, 44, 36, arm, 12, 4 - arm, 8, false, false); // right sleeve
+                part(g, texture, unit, 52, 52, arm, 12, 12, 8, false, false);    // left sleeve
+                part(g, texture, unit, 4, 36, 4, 12, 4, 20, false, false);       // right pants
+                part(g, texture, unit, 4, 52, 4, 12, 8, 20, false, false);       // left pants
+            }
+        } finally {
+            g.dispose();
+        }
+
+        return body;
+    }
+
+    /**
+     * Draws a part of the skin at a position of the body (both in skin pixels).
+     */
+    private static void part(Graphics2D g, BufferedImage texture, int unit, int sx, int sy, int width, int height,
+                             int dx, int dy, boolean mirror, boolean opaque) {
+        BufferedImage part = texture.getSubimage(sx * unit, sy * unit, width * unit, height * unit);
+
+        if (opaque || mirror) {
+            BufferedImage copy = new BufferedImage(part.getWidth(), part.getHeight(), BufferedImage.TYPE_INT_ARGB);
+
+            for (int y = 0; y < part.getHeight(); y++) {
+                for (int x = 0; x < part.getWidth(); x++) {
+                    int argb = part.getRGB(mirror ? part.getWidth() - 1 - x : x, y);
+                    copy.setRGB(x, y, opaque ? argb | 0xFF000000 : argb);
+                }
+            }
+
+            part = copy;
+        }
+
+        g.drawImage(part, dx, dy, width, height, null);
+    }
+
+    /**
+     * Legacy skins often fill the hat area with an opaque color. Like the game, the hat is only drawn if the area
+     * contains transparent pixels.
+     */
+    private static boolean hasTransparency(BufferedImage texture, int unit, int sx, int sy, int width, int height) {
+        for (int y = sy * unit; y < (sy + height) * unit; y++)
+            for (int x = sx * unit; x < (sx + width) * unit; x++)
+                if ((texture.getRGB(x, y) >>> 24) < 0xFF)
+                    return true;
+
+        return false;
+    }
+}
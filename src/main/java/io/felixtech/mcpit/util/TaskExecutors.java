@@ -0,0 +1,37 @@
+package io.felixtech.mcpit.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors for tasks which spend most of their time blocked on the network, such as lookups.
+ * <br>This version runs the tasks on cached daemon platform threads. The multi-release jar replaces it on Java 21 and
+ * newer with a version starting a virtual thread per task, so blocked tasks don't hold a platform thread each.
+ */
+public final class TaskExecutors {
+    private TaskExecutors() {}
+
+    /**
+     * Creates an executor which starts a thread for every task unless an idle one can be reused.
+     * @param name the prefix of the thread names
+     * @return the executor, to be shut down by the caller
+     */
+    public static ExecutorService newTaskExecutor(String name) {
+        AtomicInteger counter = new AtomicInteger();
+
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks if the executors run their tasks on virtual threads.
+     * @return true on Java 21 and newer
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+}
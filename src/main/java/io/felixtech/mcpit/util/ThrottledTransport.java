@@ -0,0 +1,192 @@
+package io.felixtech.mcpit.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link HttpTransport} which schedules requests per host.
+ * <br>Every host has its own {@link TokenBucket}, so requests exceeding the configured rate are queued instead of
+ * being rejected by the server. Responses with status 429 (Too Many Requests) or 5xx are retried after the time
+ * requested by the {@code Retry-After} header or, without such a header, after a jittered exponential backoff.
+ * A 429 additionally lowers the rate of the host, which then slowly recovers, so sustained throughput settles just
+ * below the limit of the server.
+ * <br>Requests with a {@link HttpRequest#getDeadline() deadline} neither wait for a permit nor retry beyond it.
+ */
+public final class ThrottledTransport implements HttpTransport {
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final HttpTransport delegate;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Set<String> configuredHosts = ConcurrentHashMap.newKeySet();
+    private volatile double defaultRate = 10;
+    private volatile int defaultBurst = 10;
+    private volatile int maxRetries = 5;
+    private volatile long baseBackoff = 500;
+    private volatile long maxBackoff = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Creates a new {@code ThrottledTransport} with the default rates of the Mojang API.
+     * @param delegate the transport which sends the requests
+     */
+    public ThrottledTransport(HttpTransport delegate) {
+        this.delegate = delegate;
+
+        setRate("api.mojang.com", 1, 10);
+        setRate("sessionserver.mojang.com", 3, 10);
+    }
+
+    /**
+     * Configures the rate of a host.
+     * @param host the host name
+     * @param permitsPerSecond the maximum number of requests per second
+     * @param burst the maximum number of requests which can be sent at once after a quiet period
+     * @throws IllegalArgumentException thrown if the rate or the burst is not greater than zero
+     */
+    public void setRate(String host, double permitsPerSecond, int burst) {
+        TokenBucket bucket = new TokenBucket(permitsPerSecond, burst);
+        String key = host.toLowerCase(Locale.ROOT);
+
+        configuredHosts.add(key);
+        buckets.put(key, bucket);
+    }
+
+    /**
+     * Configures the rate of all hosts without an explicit rate.
+     * @param permitsPerSecond the maximum number of requests per second
+     * @param burst the maximum number of requests which can be sent at once after a quiet period
+     * @throws IllegalArgumentException thrown if the rate or the burst is not greater than zero
+     */
+    public void setDefaultRate(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("Rate must be greater than zero!");
+        if (burst <= 0) throw new IllegalArgumentException("Burst must be greater than zero!");
+
+        this.defaultRate = permitsPerSecond;
+        this.defaultBurst = burst;
+
+        buckets.keySet().retainAll(configuredHosts);
+    }
+
+    /**
+     * Configures how often a throttled or failed request is retried.
+     * @param maxRetries the maximum number of retries
+     * @param baseBackoff the backoff before the first retry in milliseconds, doubled for every further retry
+     * @param maxBackoff the maximum backoff in milliseconds
+     * @throws IllegalArgumentException thrown if a value is negative
+     */
+    public void setRetries(int maxRetries, long baseBackoff, long maxBackoff) {
+        if (maxRetries < 0 || baseBackoff < 0 || maxBackoff < 0) throw new IllegalArgumentException("Retry settings must not be negative!");
+
+        this.maxRetries = maxRetries;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Returns the rate limiter of a host.
+     * @param host the host name
+     * @return the token bucket of the host
+     */
+    public TokenBucket getBucket(String host) {
+        return buckets.computeIfAbsent(host.toLowerCase(Locale.ROOT), key -> new TokenBucket(defaultRate, defaultBurst));
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        TokenBucket bucket = getBucket(request.getUrl().getHost());
+        Deadline deadline = request.getDeadline();
+
+        for (int attempt = 0; ; attempt++) {
+            if (deadline == null)
+                bucket.acquire();
+            else if (!bucket.tryAcquire(deadline.remaining()))
+                throw new PermitTimeoutException();
+
+            HttpResponse response = delegate.send(request);
+            int status = response.getStatus();
+            boolean throttled = status == TOO_MANY_REQUESTS;
+            boolean retryable = throttled || (status >= 500 && request.isIdempotent());
+
+            if (!retryable) {
+                bucket.succeeded();
+                return response;
+            }
+
+            if (throttled)
+                bucket.throttled();
+
+            if (attempt >= maxRetries)
+                return response;
+
+            long delay = retryAfter(response);
+
+            if (delay < 0)
+                delay = backoff(attempt);
+            else if (throttled)
+                bucket.pause(delay);
+
+            if (deadline != null && delay >= deadline.remaining())
+                return response; // the retry can't be answered in time
+
+            sleep(delay);
+        }
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff, baseBackoff << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    /**
+     * Parses the {@code Retry-After} header, which holds either a number of seconds or a HTTP date.
+     * @return the delay in milliseconds or -1 if the response has no valid header
+     */
+    private long retryAfter(HttpResponse response) {
+        String value = response.getHeader("Retry-After");
+
+        if (value == null)
+            return -1;
+
+        try {
+            return Math.min(maxBackoff, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch(NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.min(maxBackoff, Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis()));
+            } catch(DateTimeParseException ex) {
+                return -1;
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a retry");
+        }
+    }
+
+    /**
+     * Thrown if a request was not sent because its deadline passed while waiting for a permit, so the endpoint can't
+     * be blamed for it.
+     */
+    static final class PermitTimeoutException extends SocketTimeoutException {
+        private static final long serialVersionUID = 1L;
+
+        PermitTimeoutException() {
+            super("Deadline exceeded while waiting for a request permit");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.felixtech.mcpit.util;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket which limits the rate of requests.
+ * <br>Callers which exceed the rate are not rejected but queued: each caller reserves a token and sleeps until the
+ * token becomes available. The effective rate adapts to the server: it is decreased whenever the server throttles
+ * and slowly recovers towards the configured rate afterwards.
+ */
+public final class TokenBucket {
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final double RECOVERY_STEP = 0.02;
+    private static final double MIN_RATE_FACTOR = 0.05;
+
+    private final double maxRate;
+    private final double burst;
+
+    private double rate;
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+
+    /**
+     * Creates a new {@code TokenBucket}.
+     * @param permitsPerSecond the configured maximum rate
+     * @param burst the maximum number of permits which can be taken at once after a quiet period
+     * @throws IllegalArgumentException thrown if the rate or the burst is not greater than zero
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("Rate must be greater than zero!");
+        if (burst <= 0) throw new IllegalArgumentException("Burst must be greater than zero!");
+
+        this.maxRate = permitsPerSecond;
+        this.rate = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Takes a permit, waiting until one is available.
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedIOException {
+        sleep(reserve(Long.MAX_VALUE));
+    }
+
+    /**
+     * Takes a permit if one becomes available within the given time, waiting until it is available.
+     * <br>If no permit becomes available in time, none is reserved, so giving up doesn't slow down other callers.
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if a permit was taken, false if none becomes available in time
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public boolean tryAcquire(long timeout) throws InterruptedIOException {
+        long wait = reserve(TimeUnit.MILLISECONDS.toNanos(timeout));
+
+        if (wait < 0)
+            return false;
+
+        sleep(wait);
+        return true;
+    }
+
+    /**
+     * Takes a permit if one is available right now, without waiting.
+     * @return true if a permit was taken
+     */
+    public boolean tryAcquire() {
+        return reserve(0) >= 0;
+    }
+
+    /**
+     * Stops handing out permits for a while, e.g. because the server sent a {@code Retry-After} header.
+     * @param millis the time to pause in milliseconds
+     */
+    public synchronized void pause(long millis) {
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Reduces the effective rate because the server throttled a request.
+     */
+    public synchronized void throttled() {
+        refill(System.nanoTime());
+        rate = Math.max(maxRate * MIN_RATE_FACTOR, rate * DECREASE_FACTOR);
+    }
+
+    /**
+     * Lets the effective rate recover towards the configured rate after a successful request.
+     */
+    public synchronized void succeeded() {
+        if (rate < maxRate) {
+            refill(System.nanoTime());
+            rate = Math.min(maxRate, rate + maxRate * RECOVERY_STEP);
+        }
+    }
+
+    /**
+     * Returns the current effective rate.
+     * @return the rate in permits per second
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Reserves a token unless the caller would have to wait longer than the given time.
+     * @return the time to wait for the token in nanoseconds or -1 if no token was reserved
+     */
+    private synchronized long reserve(long maxWait) {
+        long now = System.nanoTime();
+        refill(now);
+
+        double left = tokens - 1;
+        long wait = Math.max(left >= 0 ? 0 : (long) (-left / rate * TimeUnit.SECONDS.toNanos(1)), pausedUntil - now);
+
+        if (wait > maxWait)
+            return -1;
+
+        tokens = left;
+        return wait;
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        if (nanos <= 0)
+            return;
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request permit");
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+}
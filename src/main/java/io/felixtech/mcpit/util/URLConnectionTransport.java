@@ -0,0 +1,85 @@
+package io.felixtech.mcpit.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The default {@link HttpTransport} based on {@link java.net.HttpURLConnection}.
+ * <br>Responses are negotiated with gzip compression. Every response (including error responses) is read completely
+ * and its stream is closed, so the JDK can return the connection to its keep-alive cache and reuse it for the next
+ * request to the same host instead of opening a new connection and repeating the TLS handshake.
+ * <br>A {@link HttpRequest#getCancellation() cancelled} request is aborted by closing its connection.
+ */
+public final class URLConnectionTransport implements HttpTransport {
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        URLConnection con = request.getUrl().openConnection();
+        con.setConnectTimeout(request.getTimeout());
+        con.setReadTimeout(request.getTimeout());
+        con.setRequestProperty("Accept-Encoding", "gzip");
+
+        if (!(con instanceof HttpURLConnection))
+            return new HttpResponse(200, new HashMap<>(), readFully(con.getInputStream(), false));
+
+        HttpURLConnection http = (HttpURLConnection) con;
+        http.setRequestMethod(request.getMethod());
+
+        if (request.getCancellation() != null) {
+            request.getCancellation().onCancel(http::disconnect);
+
+            if (request.getCancellation().isCancelled())
+                throw new InterruptedIOException("Request cancelled: " + request);
+        }
+
+        if (request.getBody() != null) {
+            http.setDoOutput(true);
+            http.setRequestProperty("Content-Type", request.getContentType());
+            http.setFixedLengthStreamingMode(request.getBody().length);
+
+            try (OutputStream out = http.getOutputStream()) {
+                out.write(request.getBody());
+            }
+        }
+
+        int status = http.getResponseCode();
+
+        Map<String, String> headers = new HashMap<>();
+
+        for (Map.Entry<String, List<String>> header : http.getHeaderFields().entrySet())
+            if (header.getKey() != null && !header.getValue().isEmpty())
+                headers.put(header.getKey().toLowerCase(Locale.ROOT), header.getValue().get(0));
+
+        boolean gzip = "gzip".equalsIgnoreCase(headers.get("content-encoding"))
+                && status != HttpURLConnection.HTTP_NO_CONTENT && !"0".equals(headers.get("content-length"));
+        InputStream in = status >= 400 ? http.getErrorStream() : http.getInputStream();
+
+        return new HttpResponse(status, headers, in == null ? new byte[0] : readFully(in, gzip));
+    }
+
+    private static byte[] readFully(InputStream raw, boolean gzip) throws IOException {
+        try (InputStream in = gzip ? new GZIPInputStream(raw, BUFFER_SIZE) : raw) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+
+            return out.toByteArray();
+        } finally {
+            raw.close();
+        }
+    }
+}
@@ -1,17 +1,18 @@
 package io.felixtech.mcpit.util;
 
-import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLConnection;
 
 public class URLReader extends Reader implements AutoCloseable {
-    private StringBuilder builder;
-    private final InputStreamReader isr;
-    private final BufferedReader in;
-    private boolean ready = false;
+    private static volatile HttpTransport transport = new ThrottledTransport(new URLConnectionTransport());
+    private static boolean builtIn = true;
+
+    private final String content;
+    private final StringReader in;
 
     /**
      * Creates a new character-stream reader whose critical sections will
@@ -20,24 +21,56 @@ public class URLReader extends Reader implements AutoCloseable {
      * @throws java.io.IOException if an I/O error occurs
      */
     public URLReader(URL url) throws IOException {
-        this(url, 5000);
+        this(url, HttpRequest.DEFAULT_TIMEOUT);
     }
 
     /**
      * Creates a new character-stream reader whose critical sections will
      * synchronize on the reader itself.
+     * <br>The complete ressource is read by the {@link #getTransport() transport} and the connection
+     * is released before the constructor returns.
      * @param url the URL from which to read
      * @param timeout the connection and read timeout in milliseconds
      * @throws java.io.IOException if an I/O error occurs
      */
     public URLReader(URL url, int timeout) throws IOException {
         super();
-        URLConnection con = url.openConnection();
-        con.setConnectTimeout(timeout);
-        con.setReadTimeout(timeout);
-        this.isr = new InputStreamReader(con.getInputStream());
-        this.in = new BufferedReader(this.isr);
-        ready = true;
+        this.content = execute(HttpRequest.get(url).withTimeout(timeout)).getBodyAsString();
+        this.in = new StringReader(this.content);
+    }
+
+    /**
+     * Returns the transport used to send all requests.
+     * @return the current transport
+     */
+    public static HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Replaces the transport used to send all requests.
+     * @param transport the new transport
+     */
+    public static synchronized void setTransport(HttpTransport transport) {
+        if (transport == null) throw new IllegalArgumentException("Transport must not be null!");
+        URLReader.transport = transport;
+        URLReader.builtIn = false;
+    }
+
+    /**
+     * Replaces the built-in transport, which only throttles requests, unless a transport was installed before.
+     * <br>Libraries use it to install a transport for their endpoints without overriding the choice of the application.
+     * @param transport the new transport
+     * @return true if the transport was installed
+     */
+    public static synchronized boolean setDefaultTransport(HttpTransport transport) {
+        if (transport == null) throw new IllegalArgumentException("Transport must not be null!");
+
+        if (!builtIn)
+            return false;
+
+        setTransport(transport);
+        return true;
     }
 
     /**
@@ -56,11 +89,7 @@ public class URLReader extends Reader implements AutoCloseable {
      */
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
-        String all = this.readAll();
-        if(all.length()-off > len) len = all.length()-off;
-        if(len == 0) return -1;
-        cbuf = all.substring(off, len).toCharArray();
-        return cbuf.length;
+        return this.in.read(cbuf, off, len);
     }
 
     /**
@@ -68,16 +97,10 @@ public class URLReader extends Reader implements AutoCloseable {
      * it.  Once the stream has been closed, further read(), ready(),
      * mark(), reset(), or skip() invocations will throw an IOException.
      * Closing a previously closed stream has no effect.
-     *
-     * @exception  IOException  If an I/O error occurs
      */
     @Override
-    public void close() throws IOException {
-        if(this.in != null)
-            this.in.close();
-
-        if(this.isr != null)
-            this.isr.close();
+    public void close() {
+        this.in.close();
     }
 
     /**
@@ -89,22 +112,15 @@ public class URLReader extends Reader implements AutoCloseable {
      */
     @Override
     public boolean ready() {
-        return this.ready;
+        return true;
     }
 
     /**
      * Reads the complete content of the ressource specified by the URL.
      * @return the complete content of the ressource
-     * @throws IOException if an I/O error occurs
      */
-    public String readAll() throws IOException {
-        builder = new StringBuilder();
-        String inputLine;
-
-        while ((inputLine = in.readLine()) != null)
-            builder.append(inputLine);
-
-        return builder.toString();
+    public String readAll() {
+        return content;
     }
 
     /**
@@ -114,12 +130,57 @@ public class URLReader extends Reader implements AutoCloseable {
      * @throws IOException if an I/O error occurs
      */
     public static String readURL(URL url) throws IOException {
-        String str;
+        return execute(HttpRequest.get(url)).getBodyAsString();
+    }
+
+    /**
+     * Reads the complete content of the ressource specified by the URL as raw bytes.
+     * @param url the URL from which to read
+     * @return the complete content of the ressource
+     * @throws IOException if an I/O error occurs
+     */
+    public static byte[] readBytes(URL url) throws IOException {
+        return execute(HttpRequest.get(url)).getBody();
+    }
+
+    /**
+     * Sends data to the ressource specified by the URL and reads the complete response.
+     * @param url the URL to which to send
+     * @param contentType the content type of the data
+     * @param data the data to send
+     * @return the complete content of the response
+     * @throws IOException if an I/O error occurs
+     */
+    public static String postURL(URL url, String contentType, String data) throws IOException {
+        return execute(HttpRequest.post(url, contentType, data)).getBodyAsString();
+    }
+
+    /**
+     * Sends a request with the current transport.
+     * <br>If a {@link Deadline} is bound to the current thread, the request must be answered before it.
+     * @param request the request to send
+     * @return the successful response
+     * @throws FileNotFoundException if the server answered with 404 (Not Found) or 410 (Gone)
+     * @throws HttpStatusException if the server answered with another error status
+     * @throws java.net.SocketTimeoutException if the deadline of the current thread has passed
+     * @throws IOException if an I/O error occurs
+     */
+    public static HttpResponse execute(HttpRequest request) throws IOException {
+        Deadline deadline = Deadline.current();
 
-        try (URLReader reader = new URLReader(url)) {
-            str = reader.readAll();
+        if (deadline != null && request.getDeadline() == null) {
+            deadline.check();
+            request = request.withDeadline(deadline);
         }
 
-        return str;
+        HttpResponse response = transport.send(request);
+
+        if (response.getStatus() == HttpURLConnection.HTTP_NOT_FOUND || response.getStatus() == HttpURLConnection.HTTP_GONE)
+            throw new FileNotFoundException(request.getUrl().toString());
+
+        if (response.getStatus() >= 400)
+            throw new HttpStatusException(request, response.getStatus(), response.getHeader("Retry-After"));
+
+        return response;
     }
 }
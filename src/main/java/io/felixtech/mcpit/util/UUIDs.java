@@ -0,0 +1,104 @@
+package io.felixtech.mcpit.util;
+
+import java.util.UUID;
+
+/**
+ * Parses and formats UUIDs in the two forms used by the Mojang API and by players pasting them from server logs:
+ * 32 hex digits ({@code 069a79f444e94726a5befca90e38aaf5}) and the dashed form
+ * ({@code 069a79f4-44e9-4726-a5be-fca90e38aaf5}).
+ * <br>A parsed UUID is a compact 128-bit value. Parsing doesn't use regular expressions or intermediate strings, so
+ * every user input can be checked cheaply.
+ */
+public final class UUIDs {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private UUIDs() {}
+
+    /**
+     * Parses a UUID with or without dashes.
+     * <br>Only ASCII hex digits are accepted, in either case.
+     * @param value the text to parse, e.g. the input of the user
+     * @return the UUID or {@code null} if the text is not a UUID
+     */
+    public static UUID parse(String value) {
+        if (value == null)
+            return null;
+
+        boolean dashed = value.length() == 36;
+
+        if (!dashed && value.length() != 32)
+            return null;
+
+        long msb = 0, lsb = 0;
+        int digits = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (dashed && (i == 8 || i == 13 || i == 18 || i == 23)) {
+                if (c != '-') return null;
+                continue;
+            }
+
+            int digit = digit(c);
+            if (digit < 0) return null;
+
+            if (digits++ < 16)
+                msb = msb << 4 | digit;
+            else
+                lsb = lsb << 4 | digit;
+        }
+
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns the value of an ASCII hex digit. Unlike {@link Character#digit(char, int)} it rejects other digits, e.g.
+     * full-width ones, which the Mojang API doesn't accept.
+     * @return the value or -1 if the character is not an ASCII hex digit
+     */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * Checks if a text is a UUID with or without dashes.
+     * @param value the text to check
+     * @return true if the text is a UUID
+     */
+    public static boolean isUUID(String value) {
+        return parse(value) != null;
+    }
+
+    /**
+     * Formats a UUID the way the Mojang API does.
+     * @param id the UUID
+     * @return the UUID as 32 lowercase hex digits without dashes
+     */
+    public static String format(UUID id) {
+        char[] chars = new char[32];
+        long msb = id.getMostSignificantBits(), lsb = id.getLeastSignificantBits();
+
+        for (int i = 15; i >= 0; i--, msb >>>= 4, lsb >>>= 4) {
+            chars[i] = HEX[(int) (msb & 0xF)];
+            chars[i + 16] = HEX[(int) (lsb & 0xF)];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Converts a UUID with or without dashes into the form used by the Mojang API.
+     * @param value the UUID
+     * @return the UUID as 32 lowercase hex digits without dashes
+     * @throws IllegalArgumentException thrown if the text is not a UUID
+     */
+    public static String normalize(String value) {
+        UUID id = parse(value);
+        if (id == null) throw new IllegalArgumentException("Invalid UUID: " + value);
+        return format(id);
+    }
+}
@@ -0,0 +1,30 @@
+package io.felixtech.mcpit.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors for tasks which spend most of their time blocked on the network, such as lookups.
+ * <br>This version, used on Java 21 and newer, starts a virtual thread for every task, so millions of blocked tasks
+ * share a few platform threads.
+ */
+public final class TaskExecutors {
+    private TaskExecutors() {}
+
+    /**
+     * Creates an executor which starts a virtual thread for every task.
+     * @param name the prefix of the thread names
+     * @return the executor, to be shut down by the caller
+     */
+    public static ExecutorService newTaskExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+
+    /**
+     * Checks if the executors run their tasks on virtual threads.
+     * @return true on Java 21 and newer
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+}
@@ -0,0 +1,61 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.NameIndex;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NameHistoryTest {
+    private static final NameHistory HISTORY = NameHistory.of(Arrays.asList(
+            new NameIndex.Change("third", 3000),
+            new NameIndex.Change("first", 0),
+            new NameIndex.Change("second", 1000)));
+
+    @Test
+    public void findsTheNameAtBoundaries() {
+        assertNull(HISTORY.nameAt(-1));
+        assertEquals("first", HISTORY.nameAt(0));
+        assertEquals("first", HISTORY.nameAt(999));
+        assertEquals("second", HISTORY.nameAt(1000));
+        assertEquals("second", HISTORY.nameAt(2999));
+        assertEquals("third", HISTORY.nameAt(3000));
+        assertEquals("third", HISTORY.nameAt(Long.MAX_VALUE));
+        assertNull(HISTORY.nameAt(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void sortsChangesByTime() {
+        assertEquals(3, HISTORY.size());
+        assertEquals("first", HISTORY.getName(0));
+        assertEquals("third", HISTORY.getCurrentName());
+    }
+
+    @Test
+    public void findsNoNameBeforeTheFirstChange() {
+        NameHistory history = NameHistory.of(Arrays.asList(new NameIndex.Change("late", 5000)));
+
+        assertNull(history.nameAt(4999));
+        assertEquals("late", history.nameAt(5000));
+    }
+
+    @Test
+    public void findsNoNameInAnEmptyHistory() {
+        assertNull(NameHistory.empty().nameAt(0));
+        assertNull(NameHistory.empty().getCurrentName());
+    }
+
+    @Test
+    public void keepsNamesUsedTwice() {
+        NameHistory history = NameHistory.of(Arrays.asList(
+                new NameIndex.Change("a", 0),
+                new NameIndex.Change("b", 1000),
+                new NameIndex.Change("a", 2000)));
+
+        assertEquals("b", history.nameAt(1999));
+        assertEquals("a", history.nameAt(2000));
+    }
+}
@@ -0,0 +1,105 @@
+package io.felixtech.mcpit;
+
+import io.felixtech.mcpit.util.NameIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerRecordTest {
+    private static final PlayerRecord NOTCH = new PlayerRecord("069a79f444e94726a5befca90e38aaf5", "Notch", false, false,
+            NameHistory.of(Arrays.asList(new NameIndex.Change("Notch", 0))),
+            "292009a4925b58f02c77dadc3ecef07ea4c7472f64e0fdc32ce5522489362680", null, false, 1500000000000L);
+    private static final PlayerRecord JEB = new PlayerRecord("853c80ef3c3749fdaa49938b674adae6", "jeb_", true, true,
+            NameHistory.of(Arrays.asList(new NameIndex.Change("jeb", 0), new NameIndex.Change("jeb_", 1423059891000L))),
+            "Not A Hash", "\uFF10\uFF11", true, 1600000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (PlayerRecordWriter out = new PlayerRecordWriter(bytes)) {
+            out.write(NOTCH);
+            out.write(JEB);
+        }
+
+        try (PlayerRecordReader in = new PlayerRecordReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(NOTCH, in.read());
+            assertEquals(JEB, in.read());
+            assertNull(in.read());
+            assertFalse(in.isTruncated());
+        }
+    }
+
+    @Test
+    public void detectsATruncatedTail() throws IOException {
+        File file = folder.newFile();
+        long complete = writeAndTruncate(file);
+
+        try (PlayerRecordReader in = new PlayerRecordReader(file)) {
+            assertEquals(NOTCH, in.read());
+            assertNull(in.read());
+            assertTrue(in.isTruncated());
+            assertEquals(complete, in.getOffset());
+        }
+    }
+
+    @Test
+    public void appendsAfterTheLastCompleteRecord() throws IOException {
+        File file = folder.newFile();
+        writeAndTruncate(file);
+
+        try (PlayerRecordWriter out = new PlayerRecordWriter(file, true)) {
+            out.write(JEB);
+        }
+
+        try (PlayerRecordReader in = new PlayerRecordReader(file)) {
+            assertEquals(NOTCH, in.read());
+            assertEquals(JEB, in.read());
+            assertNull(in.read());
+            assertFalse(in.isTruncated());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new PlayerRecordReader(new ByteArrayInputStream(new byte[] {'P', 'N', 'G', 0, 0})).close();
+    }
+
+    /**
+     * Writes two records and cuts the second one off in the middle, like a killed writer.
+     * @return the length of the file up to the end of the first record
+     */
+    private static long writeAndTruncate(File file) throws IOException {
+        try (PlayerRecordWriter out = new PlayerRecordWriter(file, false)) {
+            out.write(NOTCH);
+        }
+
+        long complete = file.length();
+
+        try (PlayerRecordWriter out = new PlayerRecordWriter(file, true)) {
+            out.write(JEB);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(complete + (file.length() - complete) / 2);
+        }
+
+        return complete;
+    }
+}
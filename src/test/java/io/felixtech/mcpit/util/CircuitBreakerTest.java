@@ -0,0 +1,150 @@
+package io.felixtech.mcpit.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private static final long COOL_DOWN = 20;
+
+    /**
+     * Creates a breaker which opens once half of at least 4 of the last 8 requests failed.
+     */
+    private static CircuitBreaker newBreaker() {
+        return new CircuitBreaker(8, 4, 0.5, COOL_DOWN, 4 * COOL_DOWN);
+    }
+
+    @Test
+    public void staysClosedBelowTheMinimumNumberOfRequests() {
+        CircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 3; i++)
+            fail(breaker);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1.0, breaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void staysClosedBelowTheThreshold() {
+        CircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 8; i++) {
+            if (i % 3 == 2)
+                fail(breaker);
+            else
+                succeed(breaker);
+        }
+
+        assertTrue(breaker.isClosed());
+        assertEquals(2.0 / 8, breaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void opensAtTheThresholdAndRejects() {
+        CircuitBreaker breaker = newBreaker();
+        succeed(breaker);
+        succeed(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getTimesOpened());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, breaker.getRejected());
+    }
+
+    @Test
+    public void forgetsOutcomesLeavingTheWindow() {
+        CircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 3; i++)
+            fail(breaker);
+
+        for (int i = 0; i < 8; i++)
+            succeed(breaker);
+
+        assertEquals(0.0, breaker.getFailureRate(), 0);
+        fail(breaker);
+        assertTrue(breaker.isClosed());
+    }
+
+    @Test
+    public void closesAfterASuccessfulProbe() throws InterruptedException {
+        CircuitBreaker breaker = open();
+        Thread.sleep(COOL_DOWN + 10);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire()); // only one probe at a time
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0);
+        assertEquals(COOL_DOWN, breaker.getCoolDown());
+    }
+
+    @Test
+    public void backsOffAfterFailedProbes() throws InterruptedException {
+        CircuitBreaker breaker = open();
+
+        for (long expected : new long[] {2 * COOL_DOWN, 4 * COOL_DOWN, 4 * COOL_DOWN}) {
+            Thread.sleep(breaker.getCoolDown() + 10);
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertEquals(expected, breaker.getCoolDown());
+        }
+
+        assertEquals(4, breaker.getTimesOpened());
+    }
+
+    @Test
+    public void reopensAfterAReleasedProbe() throws InterruptedException {
+        CircuitBreaker breaker = open();
+        Thread.sleep(COOL_DOWN + 10);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+
+        // the probe told nothing, so the next request probes right away with the same cool-down
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(COOL_DOWN, breaker.getCoolDown());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidThresholds() {
+        new CircuitBreaker(8, 4, 1.5, COOL_DOWN, COOL_DOWN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMinimumsLargerThanTheWindow() {
+        new CircuitBreaker(8, 9, 0.5, COOL_DOWN, COOL_DOWN);
+    }
+
+    private static CircuitBreaker open() {
+        CircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 4; i++)
+            fail(breaker);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static void succeed(CircuitBreaker breaker) {
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+    }
+
+    private static void fail(CircuitBreaker breaker) {
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+    }
+}
@@ -0,0 +1,81 @@
+package io.felixtech.mcpit.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefixTrieTest {
+    @Test
+    public void completesInLexicographicOrder() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+
+        for (String key : Arrays.asList("beta", "alps", "alphabet", "alpha", "b", "zeta"))
+            trie.put(key, key);
+
+        assertEquals(Arrays.asList("alpha", "alphabet", "alps", "b", "beta", "zeta"), trie.complete("", 10));
+        assertEquals(Arrays.asList("alpha", "alphabet", "alps"), trie.complete("al", 10));
+        assertEquals(Arrays.asList("b", "beta"), trie.complete("b", 10));
+    }
+
+    @Test
+    public void splitsLabels() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("abcdef", "abcdef");
+        trie.put("abcxyz", "abcxyz"); // splits "abcdef" after "abc"
+        trie.put("ab", "ab");         // splits "abc" after "ab", the middle node gets a value
+        trie.put("abc", "abc");       // the node created by the first split gets a value
+
+        assertEquals(4, trie.size());
+        assertEquals(Arrays.asList("ab", "abc", "abcdef", "abcxyz"), trie.complete("a", 10));
+        assertEquals(Arrays.asList("abc", "abcdef", "abcxyz"), trie.complete("abc", 10));
+        assertEquals(Collections.singletonList("abcdef"), trie.complete("abcd", 10));
+    }
+
+    @Test
+    public void completesPrefixesEndingWithinALabel() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("notch", "notch");
+        trie.put("notchy", "notchy");
+
+        assertEquals(Arrays.asList("notch", "notchy"), trie.complete("no", 10));
+        assertEquals(Collections.singletonList("notchy"), trie.complete("notchy", 10));
+    }
+
+    @Test
+    public void returnsNothingForMismatchingPrefixes() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("alpha", "alpha");
+
+        assertEquals(Collections.emptyList(), trie.complete("alx", 10));
+        assertEquals(Collections.emptyList(), trie.complete("alphabet", 10));
+        assertEquals(Collections.emptyList(), trie.complete("b", 10));
+    }
+
+    @Test
+    public void replacesValues() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        trie.put("key", 1);
+        trie.put("key", 2);
+
+        assertEquals(1, trie.size());
+        assertEquals(Collections.singletonList(2), trie.complete("k", 10));
+    }
+
+    @Test
+    public void stopsAtTheLimit() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+
+        for (String key : Arrays.asList("d", "c", "b", "a"))
+            trie.put(key, key);
+
+        assertEquals(Arrays.asList("a", "b"), trie.complete("", 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullValues() {
+        new PrefixTrie<String>().put("key", null);
+    }
+}
@@ -0,0 +1,58 @@
+package io.felixtech.mcpit.util;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UUIDsTest {
+    private static final UUID NOTCH = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    @Test
+    public void parsesBothForms() {
+        assertEquals(NOTCH, UUIDs.parse("069a79f444e94726a5befca90e38aaf5"));
+        assertEquals(NOTCH, UUIDs.parse("069a79f4-44e9-4726-a5be-fca90e38aaf5"));
+        assertEquals(NOTCH, UUIDs.parse("069A79F4-44E9-4726-A5BE-FCA90E38AAF5"));
+        assertEquals(new UUID(-1, -1), UUIDs.parse("ffffffffffffffffffffffffffffffff"));
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        assertNull(UUIDs.parse(null));
+        assertNull(UUIDs.parse(""));
+        assertNull(UUIDs.parse("Notch"));
+        assertNull(UUIDs.parse("069a79f444e94726a5befca90e38aaf"));    // 31 digits
+        assertNull(UUIDs.parse("069a79f444e94726a5befca90e38aaf50"));  // 33 digits
+        assertNull(UUIDs.parse("069a79f444e94726a5befca90e38aafg"));   // not hex
+        assertNull(UUIDs.parse("069a79f4-44e94726-a5be-fca90e38aaf5")); // dash missing
+        assertNull(UUIDs.parse("069a79f4+44e9-4726-a5be-fca90e38aaf5")); // wrong separator
+        assertNull(UUIDs.parse("069a79f444e9-4726-a5be-fca9-0e38aaf5")); // dashes moved
+        assertNull(UUIDs.parse("-069a79f44e94726a5befca90e38aaf5"));   // sign
+    }
+
+    @Test
+    public void rejectsNonAsciiDigits() {
+        // full-width and Arabic-Indic digits are digits to Character.digit
+        assertNull(UUIDs.parse("\uFF10" + "69a79f444e94726a5befca90e38aaf5"));
+        assertNull(UUIDs.parse("\u0660" + "69a79f444e94726a5befca90e38aaf5"));
+        assertNull(UUIDs.parse("069a79f444e94726a5befca90e38aa\uFF46\uFF15"));
+        assertFalse(UUIDs.isUUID(new String(new char[32]).replace('\0', '\uFF10')));
+    }
+
+    @Test
+    public void formatsLikeTheMojangApi() {
+        assertEquals("069a79f444e94726a5befca90e38aaf5", UUIDs.format(NOTCH));
+        assertEquals("00000000000000000000000000000000", UUIDs.format(new UUID(0, 0)));
+        assertEquals("069a79f444e94726a5befca90e38aaf5", UUIDs.normalize("069A79F4-44E9-4726-A5BE-FCA90E38AAF5"));
+        assertTrue(UUIDs.isUUID("069a79f444e94726a5befca90e38aaf5"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidUUIDsWhenNormalizing() {
+        UUIDs.normalize("Notch");
+    }
+}